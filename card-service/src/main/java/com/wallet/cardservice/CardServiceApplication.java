@@ -1,13 +1,18 @@
 package com.wallet.cardservice;
 
+import com.wallet.datasource.ReadReplicaDataSourceConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableFeignClients
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
+@Import(ReadReplicaDataSourceConfiguration.class)
 public class CardServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(CardServiceApplication.class, args);
@@ -5,6 +5,7 @@ import com.wallet.cardservice.enums.CardStatusAction;
 import com.wallet.cardservice.exception.FieldValidationException;
 import com.wallet.cardservice.exception.IncorrectSearchPath;
 import com.wallet.cardservice.exception.InvalidAuthorizationException;
+import com.wallet.cardservice.service.CardHoldService;
 import com.wallet.cardservice.service.CardService;
 import com.wallet.cardservice.service.JwtService;
 import com.wallet.cardservice.service.LimitService;
@@ -44,6 +45,7 @@ public class CardApiController {
     private final PageParamsValidator pageParamsValidator;
     private final CardRequestsValidator cardRequestsValidator;
     private final LimitService limitService;
+    private final CardHoldService cardHoldService;
 
     @Operation(summary = "Catch-all for unknown paths", description = "Returns 404 for unsupported card API paths.", hidden = true)
     @RequestMapping(value = "/**")
@@ -215,7 +217,7 @@ public class CardApiController {
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
-    @Operation(summary = "Create payment (internal)", description = "Deducts amount from the card. For internal service-to-service use.")
+    @Operation(summary = "Create payment (internal)", description = "Deducts amount from the card. Funds reserved by holds can't be spent. For internal service-to-service use.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Payment applied successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid amount or card"),
@@ -230,6 +232,75 @@ public class CardApiController {
         return ResponseEntity.ok(HttpStatus.OK);
     }
 
+    @Operation(summary = "Authorise payment (internal)", description = "Reserves the amount on the card under the given hold ID without debiting it. Repeating the call with the same hold ID has no effect. For internal service-to-service use.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Funds reserved"),
+            @ApiResponse(responseCode = "400", description = "Insufficient balance or invalid amount"),
+            @ApiResponse(responseCode = "403", description = "User has no access to the card"),
+            @ApiResponse(responseCode = "404", description = "Card not found")
+    })
+    @PostMapping("/{card_number}/holds/{hold_id}")
+    public ResponseEntity<HttpStatus> authorizePayment(
+            @Parameter(description = "Card number") @PathVariable("card_number") String cardNumber,
+            @Parameter(description = "Hold UUID, the transaction ID") @PathVariable("hold_id") UUID holdId,
+            @Parameter(description = "User UUID") @RequestParam("userId") UUID userId,
+            @Parameter(description = "Payment amount") @RequestParam("amount") BigDecimal amount) {
+        cardHoldService.authorize(cardNumber, userId, holdId, amount);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
+    @Operation(summary = "Capture payment (internal)", description = "Debits the funds reserved by the hold. Capturing an already captured hold has no effect. For internal service-to-service use.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Hold captured"),
+            @ApiResponse(responseCode = "409", description = "Hold not found or already released")
+    })
+    @PostMapping("/{card_number}/holds/{hold_id}/capture")
+    public ResponseEntity<HttpStatus> capturePayment(
+            @Parameter(description = "Card number") @PathVariable("card_number") String cardNumber,
+            @Parameter(description = "Hold UUID, the transaction ID") @PathVariable("hold_id") UUID holdId) {
+        cardHoldService.capture(cardNumber, holdId);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
+    @Operation(summary = "Authorise several payments (internal)", description = "Reserves the sum of all holds on the card with a single update; either every hold is created or none. Holds that already exist are skipped. For internal service-to-service use.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Funds reserved"),
+            @ApiResponse(responseCode = "400", description = "Insufficient balance or invalid amount"),
+            @ApiResponse(responseCode = "403", description = "User has no access to the card"),
+            @ApiResponse(responseCode = "404", description = "Card not found")
+    })
+    @PostMapping("/{card_number}/holds")
+    public ResponseEntity<HttpStatus> authorizePayments(
+            @Parameter(description = "Card number") @PathVariable("card_number") String cardNumber,
+            @Parameter(description = "User UUID") @RequestParam("userId") UUID userId,
+            @RequestBody List<CardHoldDto> holds) {
+        cardHoldService.authorizeAll(cardNumber, userId, holds);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
+    @Operation(summary = "Capture several payments (internal)", description = "Debits the funds reserved by all listed holds of the card with a single update. For internal service-to-service use.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Holds captured"),
+            @ApiResponse(responseCode = "409", description = "A hold was not found or is already released")
+    })
+    @PostMapping("/{card_number}/holds/capture")
+    public ResponseEntity<HttpStatus> capturePayments(
+            @Parameter(description = "Card number") @PathVariable("card_number") String cardNumber,
+            @RequestBody List<UUID> holdIds) {
+        cardHoldService.captureAll(cardNumber, holdIds);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
+    @Operation(summary = "Release holds (internal)", description = "Returns the reserved funds of every open hold in the list. Holds that are already captured or released are skipped. For internal service-to-service use.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Holds released")
+    })
+    @PostMapping("/holds/release")
+    public ResponseEntity<HttpStatus> releaseHolds(@RequestBody List<UUID> holdIds) {
+        cardHoldService.release(holdIds);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
     private String extractJwtFromHeader(String authorizationHeader) {
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
             throw new InvalidAuthorizationException("Invalid authorization header");
@@ -88,6 +88,20 @@ public class CardControllerAdvice {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InsufficientBalanceException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ApiStatusResponse> handleInsufficientBalanceException(InsufficientBalanceException e) {
+        ApiStatusResponse response = new ApiStatusResponse(false, e.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(CardHoldException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ApiStatusResponse> handleCardHoldException(CardHoldException e) {
+        ApiStatusResponse response = new ApiStatusResponse(false, e.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(InvalidAuthorizationException.class)
     @ResponseStatus(HttpStatus.UNAUTHORIZED)
     public ResponseEntity<ApiStatusResponse> handleInvalidAuthorizationException(InvalidAuthorizationException e) {
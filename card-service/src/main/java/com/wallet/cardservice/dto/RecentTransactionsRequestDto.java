@@ -0,0 +1,8 @@
+package com.wallet.cardservice.dto;
+
+import java.util.List;
+
+public record RecentTransactionsRequestDto(
+        List<String> cardNumbers,
+        int count) {
+}
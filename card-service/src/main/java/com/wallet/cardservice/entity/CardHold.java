@@ -0,0 +1,41 @@
+package com.wallet.cardservice.entity;
+
+import com.wallet.cardservice.enums.CardHoldStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Funds reserved for a pending payment; the id is the transaction id from transaction-service
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "card_hold")
+public class CardHold {
+    @Id
+    private UUID id;
+
+    @Column
+    private Long cardId;
+
+    @Column
+    private BigDecimal amount;
+
+    @Column
+    @Enumerated(value = EnumType.STRING)
+    private CardHoldStatus status;
+
+    @Column
+    private Instant createdAt;
+
+    @Column
+    private Instant expiresAt;
+
+    @Column
+    private Instant resolvedAt;
+}
@@ -0,0 +1,7 @@
+package com.wallet.cardservice.enums;
+
+public enum CardHoldStatus {
+    HELD,
+    CAPTURED,
+    RELEASED
+}
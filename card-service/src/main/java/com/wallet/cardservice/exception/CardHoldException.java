@@ -0,0 +1,7 @@
+package com.wallet.cardservice.exception;
+
+public class CardHoldException extends RuntimeException {
+    public CardHoldException(String message) {
+        super(message);
+    }
+}
@@ -1,12 +1,16 @@
 package com.wallet.cardservice.feign;
 
+import com.wallet.cardservice.dto.RecentTransactionsRequestDto;
 import com.wallet.cardservice.dto.TransactionDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @FeignClient(name = "${digital-wallet-platform.services.transaction-service.uri}")
@@ -19,4 +23,8 @@ public interface TransactionFeignClient {
 
     @GetMapping("/api/v1/transactions/{cardNumber}/recent")
     List<TransactionDto> getRecentTransactions(@PathVariable("cardNumber") String cardNumber, @RequestParam("count") int count);
+
+    // One round trip for a multi-card screen; the result has an entry for every requested card
+    @PostMapping("/api/v1/transactions/cards/recent")
+    Map<String, List<TransactionDto>> getRecentTransactions(@RequestBody RecentTransactionsRequestDto request);
 }
\ No newline at end of file
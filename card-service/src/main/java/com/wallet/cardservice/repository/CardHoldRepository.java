@@ -0,0 +1,88 @@
+package com.wallet.cardservice.repository;
+
+import com.wallet.cardservice.entity.CardHold;
+import com.wallet.cardservice.enums.CardHoldStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+
+@Repository
+public interface CardHoldRepository extends JpaRepository<CardHold, UUID> {
+
+    // Reserves the amount only while it fits into the available balance; the card row is locked until commit
+    @Modifying
+    @Query(value = "UPDATE card_ SET held_amount = held_amount + :amount " +
+            "WHERE id = :cardId AND balance - held_amount >= :amount",
+    nativeQuery = true)
+    int reserve(@Param("cardId") Long cardId, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "INSERT INTO card_hold (id, card_id, amount, status, expires_at) " +
+            "SELECT h.id, :cardId, h.amount, 'HELD', :expiresAt " +
+            "FROM unnest(CAST(:ids AS UUID[]), CAST(:amounts AS NUMERIC[])) AS h(id, amount)",
+    nativeQuery = true)
+    void insertHolds(@Param("ids") UUID[] ids,
+                     @Param("cardId") Long cardId,
+                     @Param("amounts") BigDecimal[] amounts,
+                     @Param("expiresAt") Instant expiresAt);
+
+    // Debits the sum of the captured holds with one update of the card row and returns the number of holds captured;
+    // holds that are no longer HELD are skipped
+    @Query(value = "WITH captured AS (" +
+            "UPDATE card_hold h SET status = 'CAPTURED', resolved_at = NOW() " +
+            "FROM card_details d " +
+            "WHERE h.id IN (:ids) AND h.status = 'HELD' AND d.card_id = h.card_id AND d.number = :cardNumber " +
+            "RETURNING h.card_id, h.amount" +
+            "), per_card AS (" +
+            "SELECT card_id, SUM(amount) AS amount FROM captured GROUP BY card_id" +
+            "), debited AS (" +
+            "UPDATE card_ c SET balance = c.balance - p.amount, held_amount = c.held_amount - p.amount " +
+            "FROM per_card p WHERE c.id = p.card_id " +
+            "RETURNING c.id" +
+            ") " +
+            "SELECT count(*) FROM captured",
+    nativeQuery = true)
+    long captureAll(@Param("ids") Collection<UUID> ids, @Param("cardNumber") String cardNumber);
+
+    long countByIdInAndStatus(Collection<UUID> ids, CardHoldStatus status);
+
+    // Returns the number of cards whose reservations shrank; holds that are no longer HELD are skipped
+    @Modifying
+    @Query(value = "WITH released AS (" +
+            "UPDATE card_hold SET status = 'RELEASED', resolved_at = NOW() " +
+            "WHERE id IN (:ids) AND status = 'HELD' " +
+            "RETURNING card_id, amount" +
+            "), per_card AS (" +
+            "SELECT card_id, SUM(amount) AS amount FROM released GROUP BY card_id" +
+            ") " +
+            "UPDATE card_ c SET held_amount = c.held_amount - p.amount " +
+            "FROM per_card p WHERE c.id = p.card_id",
+    nativeQuery = true)
+    int releaseAll(@Param("ids") Collection<UUID> ids);
+
+    // Same as releaseAll for holds whose payment was never confirmed or cancelled, one chunk at a time
+    @Modifying
+    @Query(value = "WITH released AS (" +
+            "UPDATE card_hold SET status = 'RELEASED', resolved_at = NOW() " +
+            "WHERE id IN (" +
+            "SELECT id FROM card_hold " +
+            "WHERE status = 'HELD' AND expires_at < NOW() " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED" +
+            ") " +
+            "RETURNING card_id, amount" +
+            "), per_card AS (" +
+            "SELECT card_id, SUM(amount) AS amount FROM released GROUP BY card_id" +
+            ") " +
+            "UPDATE card_ c SET held_amount = c.held_amount - p.amount " +
+            "FROM per_card p WHERE c.id = p.card_id",
+    nativeQuery = true)
+    int releaseExpired(@Param("limit") int limit);
+}
@@ -5,10 +5,12 @@ import com.wallet.cardservice.entity.CardMetadata;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -44,6 +46,13 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
     int countByUserId(UUID userId);
 
+    // Debits the amount only while it fits into the available balance, so funds reserved by holds can't be spent
+    @Modifying
+    @Query(value = "UPDATE card_ SET balance = balance - :amount " +
+            "WHERE id = :cardId AND balance - held_amount >= :amount",
+    nativeQuery = true)
+    int debit(@Param("cardId") Long cardId, @Param("amount") BigDecimal amount);
+
     @EntityGraph(attributePaths = {"cardMetadata", "cardDetails", "limit"})
     Optional<Card> findByCardDetails_Number(String cardNumber);
 
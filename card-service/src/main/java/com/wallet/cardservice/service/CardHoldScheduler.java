@@ -0,0 +1,31 @@
+package com.wallet.cardservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Safety net for holds whose release call from transaction-service never arrived
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardHoldScheduler {
+    private final CardHoldService cardHoldService;
+
+    @Value("${card.holds.sweep.chunk-size}")
+    private int chunkSize;
+
+    @Scheduled(fixedDelayString = "${card.holds.sweep.delay-ms}")
+    public void releaseExpiredHolds() {
+        int cards;
+        int total = 0;
+        do {
+            cards = cardHoldService.releaseExpired(chunkSize);
+            total += cards;
+        } while (cards > 0);
+        if (total > 0) {
+            log.info("Released expired holds on {} cards", total);
+        }
+    }
+}
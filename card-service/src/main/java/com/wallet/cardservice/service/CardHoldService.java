@@ -0,0 +1,125 @@
+package com.wallet.cardservice.service;
+
+import com.wallet.cardservice.dto.CardHoldDto;
+import com.wallet.cardservice.entity.Card;
+import com.wallet.cardservice.entity.CardHold;
+import com.wallet.cardservice.enums.CardHoldStatus;
+import com.wallet.cardservice.exception.CardHoldException;
+import com.wallet.cardservice.exception.CardNotFoundException;
+import com.wallet.cardservice.exception.InsufficientBalanceException;
+import com.wallet.cardservice.repository.CardHoldRepository;
+import com.wallet.cardservice.repository.CardRepository;
+import com.wallet.cardservice.util.CardSecurityProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Two-phase payments: authorise reserves funds without touching the balance, capture debits them, release drops them.
+// Every step is a short conditional update keyed by the hold id, so each of them can be retried.
+@Service
+@RequiredArgsConstructor
+public class CardHoldService {
+    private final CardRepository cardRepository;
+    private final CardHoldRepository cardHoldRepository;
+    private final CardSecurityProvider cardSecurityProvider;
+    private final CardCacheService cardCacheService;
+
+    @Value("${card.holds.ttl}")
+    private Duration holdTtl;
+
+    public void authorize(String cardNumber, UUID userId, UUID holdId, BigDecimal amount) {
+        authorizeAll(cardNumber, userId, List.of(new CardHoldDto(holdId, amount)));
+    }
+
+    // All holds of the call are reserved together with one update of the card row, or none of them is
+    @Transactional
+    public void authorizeAll(String cardNumber, UUID userId, List<CardHoldDto> holds) {
+        Set<UUID> existing = cardHoldRepository.findAllById(holds.stream().map(CardHoldDto::holdId).toList()).stream()
+                .map(CardHold::getId)
+                .collect(Collectors.toSet());
+        List<CardHoldDto> newHolds = holds.stream()
+                .filter(hold -> !existing.contains(hold.holdId()))
+                .toList();
+        if (newHolds.isEmpty()) {
+            return;
+        }
+
+        Card card = cardRepository.findByCardDetails_Number(cardNumber)
+                .orElseThrow(() -> new CardNotFoundException("Card not found"));
+        cardSecurityProvider.checkCardOwner(card.getId(), userId);
+
+        UUID[] ids = new UUID[newHolds.size()];
+        BigDecimal[] amounts = new BigDecimal[newHolds.size()];
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < newHolds.size(); i++) {
+            CardHoldDto hold = newHolds.get(i);
+            if (hold.amount() == null || hold.amount().signum() <= 0) {
+                throw new CardHoldException("Hold amount must be positive");
+            }
+            ids[i] = hold.holdId();
+            amounts[i] = hold.amount();
+            total = total.add(hold.amount());
+        }
+
+        if (cardHoldRepository.reserve(card.getId(), total) == 0) {
+            throw new InsufficientBalanceException("Insufficient balance");
+        }
+        cardHoldRepository.insertHolds(ids, card.getId(), amounts, Instant.now().plus(holdTtl));
+    }
+
+    public void capture(String cardNumber, UUID holdId) {
+        captureAll(cardNumber, List.of(holdId));
+    }
+
+    // All holds of the call end up CAPTURED, or the whole capture rolls back. Holds captured before (a retried call)
+    // count as done; any hold that was released or expired in between makes the call fail.
+    @Transactional
+    public void captureAll(String cardNumber, List<UUID> holdIds) {
+        if (holdIds.isEmpty()) {
+            return;
+        }
+        Set<UUID> ids = new HashSet<>(holdIds);
+        List<CardHold> holds = cardHoldRepository.findAllById(ids);
+        if (holds.size() != ids.size()) {
+            throw new CardHoldException("Hold not found");
+        }
+
+        long captured = cardHoldRepository.captureAll(ids, cardNumber);
+        // Counted after the update, so holds a concurrent call captured meanwhile are included
+        long alreadyCaptured = cardHoldRepository.countByIdInAndStatus(ids, CardHoldStatus.CAPTURED) - captured;
+        if (captured + alreadyCaptured != ids.size()) {
+            throw new CardHoldException("Holds " + holdIds + " can't be captured");
+        }
+        if (captured == 0) {
+            return;
+        }
+
+        cardCacheService.evictCardById(holds.get(0).getCardId());
+        cardCacheService.evictAllCardsByNumber(cardNumber);
+    }
+
+    // The balance itself doesn't change, so cached cards stay valid
+    @Transactional
+    public int release(Collection<UUID> holdIds) {
+        if (holdIds.isEmpty()) {
+            return 0;
+        }
+        return cardHoldRepository.releaseAll(holdIds);
+    }
+
+    @Transactional
+    public int releaseExpired(int limit) {
+        return cardHoldRepository.releaseExpired(limit);
+    }
+}
@@ -202,11 +202,9 @@ public class CardService {
         Card card = cardRepository.findByCardDetails_Number(cardNumber)
                 .orElseThrow(() -> new CardNotFoundException("Card not found"));
         cardSecurityProvider.checkCardOwner(card.getId(), userId);
-        if (card.getBalance().compareTo(amount) < 0) {
+        if (cardRepository.debit(card.getId(), amount) == 0) {
             throw new InsufficientBalanceException("Insufficient balance");
         }
-        card.setBalance(card.getBalance().subtract(amount));
-        cardRepository.save(card);
 
         cardCacheService.evictCardById(card.getId());
         cardCacheService.evictAllCardsByNumber(cardNumber);
@@ -10,8 +10,12 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -28,7 +32,14 @@ public class CardSortManager {
         if (lastUsedCardNumbers.isEmpty()) {
             return Collections.emptyList();
         }
-        return cardRepository.findByCardDetails_NumberIn(lastUsedCardNumbers);
+        // IN (...) loses the order transaction-service returned the numbers in
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < lastUsedCardNumbers.size(); i++) {
+            position.put(lastUsedCardNumbers.get(i), i);
+        }
+        List<Card> cards = new ArrayList<>(cardRepository.findByCardDetails_NumberIn(lastUsedCardNumbers));
+        cards.sort(Comparator.comparing(card -> position.get(card.getCardDetails().getNumber())));
+        return cards;
     }
 
     @Async
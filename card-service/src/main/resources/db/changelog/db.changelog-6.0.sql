@@ -0,0 +1,20 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Funds reserved by open holds; the available balance is balance - held_amount
+ALTER TABLE card_ ADD COLUMN held_amount NUMERIC(19, 4) NOT NULL DEFAULT 0;
+ALTER TABLE card_ ADD CONSTRAINT chk_card_held_amount CHECK (held_amount >= 0 AND held_amount <= balance);
+
+--changeset sromanov:2
+-- One hold per payment, keyed by the transaction id, so authorise, capture and release can be retried safely
+CREATE TABLE IF NOT EXISTS card_hold (
+    id UUID PRIMARY KEY,
+    card_id BIGINT NOT NULL REFERENCES card_(id) ON DELETE CASCADE,
+    amount NUMERIC(19, 4) NOT NULL CHECK (amount > 0),
+    status VARCHAR(20) NOT NULL CHECK (status IN ('HELD', 'CAPTURED', 'RELEASED')),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    resolved_at TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_card_hold_open_expires_at ON card_hold (expires_at) WHERE status = 'HELD';
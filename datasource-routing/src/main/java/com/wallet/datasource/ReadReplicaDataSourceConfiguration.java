@@ -0,0 +1,75 @@
+package com.wallet.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends {@code @Transactional(readOnly = true)} work to the read replicas and everything else to the primary.
+ * The lazy proxy only fetches a physical connection at the first statement, once the transaction's
+ * read-only flag is known. Replicas reuse the primary's credentials and Hikari settings.
+ * <p>
+ * Imported by every service that reads from replicas, configured under {@code datasource.replica-routing}.
+ * Pools are named after {@code spring.application.name}, so their Hikari metrics stay apart across services.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica-routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReadReplicaDataSourceConfiguration {
+
+    @Value("${spring.application.name}")
+    private String applicationName;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(applicationName + "-primary");
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             @Value("${datasource.replica-routing.urls}") List<String> replicaUrls,
+                                                             @Value("${datasource.replica-routing.max-lag}") Duration maxLag,
+                                                             @Value("${datasource.replica-routing.lag-check-interval}") Duration lagCheckInterval,
+                                                             MeterRegistry meterRegistry) {
+        List<HikariDataSource> replicaPools = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            // Also takes over the primary's metrics tracker, which tags the Hikari metrics with each pool's name
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls.get(i));
+            config.setPoolName(applicationName + "-replica-" + i);
+            config.setReadOnly(true);
+            // An unreachable replica must not fail startup, the lag check keeps it out of rotation instead
+            config.setInitializationFailTimeout(-1);
+            replicaPools.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaPools, maxLag, lagCheckInterval, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+}
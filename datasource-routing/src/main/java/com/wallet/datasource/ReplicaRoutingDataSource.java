@@ -0,0 +1,148 @@
+package com.wallet.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only side of the datasource: hands out connections round-robin from the replicas whose last
+ * measured replication lag is within the tolerance, and from the primary when none of them is.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+    // A replica that has replayed everything it received is caught up, however old its last replayed transaction is
+    private static final String LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT) END";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryFallbacks;
+    private final ScheduledExecutorService lagMonitor;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration maxLag,
+                                    Duration lagCheckInterval, MeterRegistry meterRegistry) {
+        this(primary, replicaPools, maxLag, meterRegistry, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        lagMonitor.scheduleWithFixedDelay(this::checkLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Leaves scheduling the lag checks to the caller, so tests can run them one at a time
+    ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration maxLag,
+                             MeterRegistry meterRegistry, ScheduledExecutorService lagMonitor) {
+        this.primary = primary;
+        this.maxLagMs = maxLag.toMillis();
+        this.replicas = replicaPools.stream()
+                .map(pool -> new Replica(pool, meterRegistry))
+                .toList();
+        this.primaryFallbacks = Counter.builder("datasource.replica.routed")
+                .tag("pool", primary.getPoolName())
+                .register(meterRegistry);
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = nextHealthyReplica();
+        if (replica != null) {
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.routed.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markUnavailable(e);
+            }
+        }
+        primaryFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    private Replica nextHealthyReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                replica.lagMs = resultSet.getLong(1);
+                boolean healthy = replica.lagMs <= maxLagMs;
+                if (healthy != replica.healthy) {
+                    log.info("Replica pool {} is {} (lag {} ms)", replica.pool.getPoolName(), healthy ? "in rotation" : "out of rotation", replica.lagMs);
+                }
+                replica.healthy = healthy;
+            } catch (Exception e) {
+                replica.markUnavailable(e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        lagMonitor.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private static final class Replica {
+        private final HikariDataSource pool;
+        private final Counter routed;
+        private volatile boolean healthy;
+        private volatile long lagMs = -1;
+
+        private Replica(HikariDataSource pool, MeterRegistry meterRegistry) {
+            this.pool = pool;
+            this.routed = Counter.builder("datasource.replica.routed")
+                    .tag("pool", pool.getPoolName())
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", this, replica -> replica.lagMs)
+                    .tag("pool", pool.getPoolName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", this, replica -> replica.healthy ? 1 : 0)
+                    .tag("pool", pool.getPoolName())
+                    .register(meterRegistry);
+        }
+
+        private void markUnavailable(Exception e) {
+            if (healthy) {
+                log.warn("Replica pool {} is out of rotation: {}", pool.getPoolName(), e.getMessage());
+            }
+            healthy = false;
+            lagMs = -1;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.wallet.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadReplicaDataSourceConfigurationTest {
+    // Nothing listens there: replica pools must start anyway and stay out of rotation
+    private static final String UNREACHABLE = "jdbc:postgresql://127.0.0.1:1/wallet";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            // Converts the durations of @Value the way a SpringApplication does
+            .withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+            .withUserConfiguration(ReadReplicaDataSourceConfiguration.class)
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withPropertyValues(
+                    "spring.application.name=card-service",
+                    "spring.datasource.url=" + UNREACHABLE,
+                    "datasource.replica-routing.urls=" + UNREACHABLE + "," + UNREACHABLE,
+                    "datasource.replica-routing.max-lag=5s",
+                    "datasource.replica-routing.lag-check-interval=1h");
+
+    @Test
+    void routingIsOffByDefault() {
+        contextRunner.run(context -> assertThat(context)
+                .doesNotHaveBean(ReplicaRoutingDataSource.class)
+                .doesNotHaveBean(DataSource.class));
+    }
+
+    @Test
+    void poolsAreNamedAfterTheApplication() {
+        contextRunner.withPropertyValues("datasource.replica-routing.enabled=true").run(context -> {
+            assertThat(context).hasSingleBean(ReplicaRoutingDataSource.class);
+            assertThat(context.getBean(DataSource.class)).isInstanceOf(LazyConnectionDataSourceProxy.class);
+            assertThat(context.getBean("primaryDataSource", HikariDataSource.class).getPoolName())
+                    .isEqualTo("card-service-primary");
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "card-service-replica-0").gauge()).isNotNull();
+            assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "card-service-replica-1").gauge()).isNotNull();
+            assertThat(meterRegistry.find("datasource.replica.routed").tag("pool", "card-service-primary").counter()).isNotNull();
+        });
+    }
+
+    @Test
+    void primaryPoolReportsHikariMetrics() {
+        contextRunner.withPropertyValues("datasource.replica-routing.enabled=true").run(context ->
+                assertThat(context.getBean("primaryDataSource", HikariDataSource.class).getMetricsTrackerFactory()).isNotNull());
+    }
+
+    @Test
+    void lagToleranceIsConfigurable() {
+        contextRunner.withPropertyValues("datasource.replica-routing.enabled=true", "datasource.replica-routing.max-lag=250ms")
+                .run(context -> assertThat(context.getBean(ReplicaRoutingDataSource.class))
+                        .extracting("maxLagMs")
+                        .isEqualTo(250L));
+    }
+}
@@ -0,0 +1,137 @@
+package com.wallet.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+    private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ReplicaRoutingDataSource> dataSources = new ArrayList<>();
+    private HikariDataSource primary;
+    private Connection primaryConnection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryConnection = mock(Connection.class);
+        primary = pool("card-service-primary", primaryConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSources.forEach(ReplicaRoutingDataSource::destroy);
+    }
+
+    @Test
+    void readsGoRoundRobinToCaughtUpReplicas() throws SQLException {
+        Connection first = replicaConnection(0);
+        Connection second = replicaConnection(1_000);
+        ReplicaRoutingDataSource dataSource = dataSource(
+                pool("card-service-replica-0", first),
+                pool("card-service-replica-1", second));
+        dataSource.checkLag();
+
+        assertThat(List.of(dataSource.getConnection(), dataSource.getConnection(), dataSource.getConnection()))
+                .containsExactly(first, second, first);
+        assertThat(routed("card-service-replica-0")).isEqualTo(2);
+        assertThat(routed("card-service-replica-1")).isEqualTo(1);
+        assertThat(routed("card-service-primary")).isZero();
+    }
+
+    @Test
+    void replicaBeyondTheLagToleranceIsSkipped() throws SQLException {
+        Connection caughtUp = replicaConnection(0);
+        ReplicaRoutingDataSource dataSource = dataSource(
+                pool("card-service-replica-0", replicaConnection(MAX_LAG.toMillis() + 1)),
+                pool("card-service-replica-1", caughtUp));
+        dataSource.checkLag();
+
+        assertThat(dataSource.getConnection()).isSameAs(caughtUp);
+        assertThat(dataSource.getConnection()).isSameAs(caughtUp);
+        assertThat(meterRegistry.get("datasource.replica.healthy").tag("pool", "card-service-replica-0").gauge().value()).isZero();
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("pool", "card-service-replica-0").gauge().value())
+                .isEqualTo(MAX_LAG.toMillis() + 1);
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenNoReplicaIsCaughtUp() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource(pool("card-service-replica-0", replicaConnection(60_000)));
+        dataSource.checkLag();
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(routed("card-service-primary")).isEqualTo(1);
+    }
+
+    @Test
+    void readsGoToThePrimaryBeforeTheFirstLagCheck() throws SQLException {
+        ReplicaRoutingDataSource dataSource = dataSource(pool("card-service-replica-0", replicaConnection(0)));
+
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void replicaThatFailsToConnectLeavesTheRotationUntilTheNextLagCheck() throws SQLException {
+        Connection connection = replicaConnection(0);
+        HikariDataSource replica = pool("card-service-replica-0", connection);
+        ReplicaRoutingDataSource dataSource = dataSource(replica);
+        dataSource.checkLag();
+
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(meterRegistry.get("datasource.replica.lag").tag("pool", "card-service-replica-0").gauge().value()).isEqualTo(-1);
+
+        doReturn(connection).when(replica).getConnection();
+        dataSource.checkLag();
+        assertThat(dataSource.getConnection()).isSameAs(connection);
+    }
+
+    private ReplicaRoutingDataSource dataSource(HikariDataSource... replicas) {
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+                primary, List.of(replicas), MAX_LAG, meterRegistry, mock(ScheduledExecutorService.class));
+        dataSources.add(dataSource);
+        return dataSource;
+    }
+
+    private double routed(String pool) {
+        return meterRegistry.get("datasource.replica.routed").tag("pool", pool).counter().count();
+    }
+
+    private static HikariDataSource pool(String name, Connection connection) throws SQLException {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        when(pool.getPoolName()).thenReturn(name);
+        when(pool.getConnection()).thenReturn(connection);
+        return pool;
+    }
+
+    // A connection whose lag query reports the given replication lag
+    private static Connection replicaConnection(long lagMs) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(lagMs);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        return connection;
+    }
+}
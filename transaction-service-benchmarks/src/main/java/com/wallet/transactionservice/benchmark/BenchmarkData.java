@@ -0,0 +1,172 @@
+package com.wallet.transactionservice.benchmark;
+
+import com.wallet.transactionservice.dto.Amount;
+import com.wallet.transactionservice.dto.CardDetailsDto;
+import com.wallet.transactionservice.dto.CardDto;
+import com.wallet.transactionservice.dto.CardInfoDto;
+import com.wallet.transactionservice.dto.Holder;
+import com.wallet.transactionservice.dto.Location;
+import com.wallet.transactionservice.dto.PaymentOffer;
+import com.wallet.transactionservice.dto.PaymentRequestDto;
+import com.wallet.transactionservice.entity.PaymentOfferEntity;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.enums.CardStatus;
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.Currency;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Seeded generators for benchmark datasets. Shapes follow production data: amounts are log-normal
+ * around a few thousand roubles with a tail of large transfers, a few categories dominate,
+ * card numbers pass the Luhn check, and offers arrive in the generator's Redis format.
+ */
+public final class BenchmarkData {
+    private static final long SEED = 42;
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+    private static final TransactionCategory[] FREQUENT_CATEGORIES = {
+            TransactionCategory.SUPERMARKETS,
+            TransactionCategory.RESTAURANTS_AND_CAFES,
+            TransactionCategory.TRANSPORT,
+            TransactionCategory.SBP_TRANSFER,
+            TransactionCategory.INCOMING_TRANSFER
+    };
+    private static final String[] VENDORS = {
+            "Pyaterochka", "Magnit", "Perekrestok", "VkusVill", "Yandex Go", "Aeroflot", "RZD", "Ozon",
+            "Wildberries", "MTS", "Beeline", "Shokoladnitsa", "Lukoil", "Gazprom Neft", "Apteka 36.6", "Sber"
+    };
+    private static final DateTimeFormatter EXPIRATION_FORMAT = DateTimeFormatter.ofPattern("MM/yy");
+    private static final double LARGE_TRANSFER_SHARE = 0.1;
+
+    private final Random random = new Random(SEED);
+
+    public List<Transaction> confirmedTransactions(int count, LocalDate from, LocalDate to) {
+        long periodSeconds = (to.toEpochDay() - from.toEpochDay() + 1) * 86_400;
+        Instant start = from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PaymentOfferEntity offer = offerEntity(i);
+            Instant createdAt = start.plusSeconds((long) (random.nextDouble() * periodSeconds));
+            transactions.add(Transaction.builder()
+                    .id(uuid())
+                    .userId(uuid())
+                    .offer(offer)
+                    .status(TransactionStatus.CONFIRMED)
+                    .cardNumber(cardNumber())
+                    .cardType(random.nextInt(4) == 0 ? CardType.CREDIT : CardType.DEBIT)
+                    .fee(BigDecimal.ZERO.setScale(4))
+                    .amount(offer.getCategory().applySign(offer.getAmount()))
+                    .createdAt(createdAt)
+                    .confirmedAt(createdAt.plusSeconds(5 + random.nextInt(120)))
+                    .build());
+        }
+        return transactions;
+    }
+
+    public PaymentOfferEntity offerEntity(int index) {
+        return PaymentOfferEntity.builder()
+                .id("pmt-" + (1_000_000 + index))
+                .amount(amount().setScale(4))
+                .currency(Currency.RUB)
+                .category(category())
+                .vendor(vendor())
+                .latitude(55.5f + random.nextFloat())
+                .longitude(37.3f + random.nextFloat())
+                .suggestedAt(Instant.now().minusSeconds(random.nextInt(300)))
+                .build();
+    }
+
+    public PaymentOffer offer(int index) {
+        return new PaymentOffer(
+                "pmt-" + (1_000_000 + index),
+                new Amount(amount(), Currency.RUB.name()),
+                category().name(),
+                new Location(vendor(), 55.5f + random.nextFloat(), 37.3f + random.nextFloat()),
+                Instant.ofEpochSecond(Instant.now().getEpochSecond() - random.nextInt(300))
+        );
+    }
+
+    // Mostly everyday purchases, with a share of transfers above the commission threshold
+    public BigDecimal amount() {
+        double value = random.nextDouble() < LARGE_TRANSFER_SHARE
+                ? 500_000 + random.nextDouble() * 2_000_000
+                : Math.exp(Math.log(1_500) + 1.1 * random.nextGaussian());
+        return BigDecimal.valueOf(Math.max(1, Math.min(value, 5_000_000))).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Valid card with a balance that covers the offer, the shape of a typical successful payment
+    public CardInfoDto cardInfo(UUID userId, String cardNumber, String cvv, BigDecimal balance) {
+        return CardInfoDto.builder()
+                .cardDto(new CardDto(userId, balance, CardStatus.ACTIVE.name()))
+                .holder(new Holder("Ivan", "Petrov", userId))
+                .secretDetails(new CardDetailsDto(cardNumber, expirationDate(), cvv))
+                .build();
+    }
+
+    public PaymentRequestDto paymentRequest(String cardNumber, String cvv) {
+        PaymentRequestDto request = new PaymentRequestDto();
+        request.setCardNumber(cardNumber);
+        request.setCvv(cvv);
+        return request;
+    }
+
+    public UUID uuid() {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+
+    public String cvv() {
+        return String.format("%03d", random.nextInt(1000));
+    }
+
+    public String cardNumber() {
+        int[] digits = new int[16];
+        digits[0] = 2;
+        for (int i = 1; i < 15; i++) {
+            digits[i] = random.nextInt(10);
+        }
+        int sum = 0;
+        for (int i = 0; i < 15; i++) {
+            int digit = digits[14 - i];
+            if (i % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        digits[15] = (10 - sum % 10) % 10;
+
+        StringBuilder number = new StringBuilder(16);
+        for (int digit : digits) {
+            number.append(digit);
+        }
+        return number.toString();
+    }
+
+    private String expirationDate() {
+        return YearMonth.now().plusMonths(1 + random.nextInt(48)).format(EXPIRATION_FORMAT);
+    }
+
+    private TransactionCategory category() {
+        return random.nextInt(10) < 7
+                ? FREQUENT_CATEGORIES[random.nextInt(FREQUENT_CATEGORIES.length)]
+                : CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    private String vendor() {
+        return VENDORS[random.nextInt(VENDORS.length)];
+    }
+}
@@ -0,0 +1,72 @@
+package com.wallet.transactionservice.benchmark;
+
+import com.wallet.transactionservice.entity.FeeTier;
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.service.FeeSchedule;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// FeeService.applyTransferFee minus the volatile read of the current schedule
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeeServiceBenchmark {
+    // Amounts are cycled one per invocation; the size only changes the working set
+    @Param({"1000", "100000"})
+    private int amounts;
+
+    private FeeSchedule schedule;
+    private BigDecimal[] data;
+    private TransactionCategory[] categories;
+    private CardType[] cardTypes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        schedule = FeeSchedule.compile(List.of(
+                tier(null, null, "500000", "0.01", "0", "1000000"),
+                tier(TransactionCategory.SBP_TRANSFER, null, "0", "0", "0", null),
+                tier(TransactionCategory.SBP_TRANSFER, null, "100000", "0.005", "0", "1500"),
+                tier(TransactionCategory.CASH_WITHDRAWAL, CardType.CREDIT, "0", "0.039", "390", null),
+                tier(null, CardType.CREDIT, "0", "0", "0", null),
+                tier(null, CardType.CREDIT, "50000", "0.015", "0", "50000"),
+                tier(null, CardType.CREDIT, "500000", "0.01", "0", "1000000")
+        ), 1);
+
+        BenchmarkData generator = new BenchmarkData();
+        data = new BigDecimal[amounts];
+        categories = new TransactionCategory[amounts];
+        cardTypes = new CardType[amounts];
+        for (int i = 0; i < amounts; i++) {
+            data[i] = generator.amount();
+            categories[i] = generator.offerEntity(i).getCategory();
+            cardTypes[i] = i % 4 == 0 ? CardType.CREDIT : CardType.DEBIT;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal applyTransferFee() {
+        int i = next;
+        next = next + 1 == amounts ? 0 : next + 1;
+        return schedule.applyFee(data[i], categories[i], cardTypes[i]);
+    }
+
+    private static FeeTier tier(TransactionCategory category, CardType cardType, String minAmount, String rate,
+                                String fixedFee, String maxFee) {
+        return FeeTier.builder()
+                .category(category)
+                .cardType(cardType)
+                .minAmount(new BigDecimal(minAmount))
+                .rate(new BigDecimal(rate))
+                .fixedFee(new BigDecimal(fixedFee))
+                .maxFee(maxFee == null ? null : new BigDecimal(maxFee))
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.wallet.transactionservice.benchmark;
+
+import com.wallet.transactionservice.dto.PaymentOffer;
+import com.wallet.transactionservice.util.PaymentOfferJson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Gson handling of the offers CacheService claims from and returns to Redis
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentOfferParsingBenchmark {
+    @Param({"1000", "100000"})
+    private int offers;
+
+    private PaymentOffer[] data;
+    private String[] json;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData generator = new BenchmarkData();
+        data = new PaymentOffer[offers];
+        json = new String[offers];
+        for (int i = 0; i < offers; i++) {
+            data[i] = generator.offer(i);
+            json[i] = PaymentOfferJson.toJson(data[i]);
+        }
+    }
+
+    @Benchmark
+    public PaymentOffer parseOffer() {
+        return PaymentOfferJson.fromJson(json[nextIndex()]);
+    }
+
+    @Benchmark
+    public String writeOffer() {
+        return PaymentOfferJson.toJson(data[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = next + 1 == offers ? 0 : next + 1;
+        return i;
+    }
+}
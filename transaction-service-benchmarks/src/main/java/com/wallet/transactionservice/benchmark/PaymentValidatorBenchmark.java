@@ -0,0 +1,59 @@
+package com.wallet.transactionservice.benchmark;
+
+import com.wallet.transactionservice.dto.CardInfoDto;
+import com.wallet.transactionservice.dto.PaymentOffer;
+import com.wallet.transactionservice.dto.PaymentRequestDto;
+import com.wallet.transactionservice.util.CardDataValidator;
+import com.wallet.transactionservice.util.PaymentValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Successful validations only: the rejecting paths throw and are dominated by exception construction
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentValidatorBenchmark {
+    @Param({"1000", "100000"})
+    private int payments;
+
+    private final PaymentValidator paymentValidator = new PaymentValidator(new CardDataValidator());
+    private PaymentRequestDto[] requests;
+    private CardInfoDto[] cards;
+    private UUID[] users;
+    private PaymentOffer[] offers;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData generator = new BenchmarkData();
+        requests = new PaymentRequestDto[payments];
+        cards = new CardInfoDto[payments];
+        users = new UUID[payments];
+        offers = new PaymentOffer[payments];
+        for (int i = 0; i < payments; i++) {
+            UUID userId = generator.uuid();
+            String cardNumber = generator.cardNumber();
+            String cvv = generator.cvv();
+            PaymentOffer offer = generator.offer(i);
+            BigDecimal balance = offer.amount().value().add(generator.amount());
+
+            users[i] = userId;
+            offers[i] = offer;
+            requests[i] = generator.paymentRequest(cardNumber, cvv);
+            cards[i] = generator.cardInfo(userId, cardNumber, cvv, balance);
+        }
+    }
+
+    @Benchmark
+    public void validatePayment() {
+        int i = next;
+        next = next + 1 == payments ? 0 : next + 1;
+        paymentValidator.validatePayment(requests[i], cards[i], users[i], offers[i]);
+    }
+}
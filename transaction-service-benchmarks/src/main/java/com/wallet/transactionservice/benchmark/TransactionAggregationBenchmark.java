@@ -0,0 +1,58 @@
+package com.wallet.transactionservice.benchmark;
+
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.service.TransactionAggregationEngine;
+import com.wallet.transactionservice.service.TransactionAggregator;
+import com.wallet.transactionservice.util.DateConverter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionAggregationBenchmark {
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 1, 31);
+
+    @Param({"1000", "10000", "50000"})
+    private int transactions;
+
+    private final DateConverter dateConverter = new DateConverter();
+    private List<Transaction> data;
+
+    @Setup
+    public void setUp() {
+        data = new BenchmarkData().confirmedTransactions(transactions, FROM, TO);
+    }
+
+    @Benchmark
+    public void transactionAggregator(Blackhole bh) {
+        TransactionAggregator aggregator = new TransactionAggregator(data, dateConverter);
+        bh.consume(aggregator.getTotalSpending());
+        bh.consume(aggregator.getTotalIncome());
+        bh.consume(aggregator.getDailyTotals());
+        bh.consume(aggregator.getDailySpendingTotals());
+        bh.consume(aggregator.getDailyIncomeTotals());
+        bh.consume(aggregator.getCategorySpending());
+        bh.consume(aggregator.getCategoryIncome());
+    }
+
+    @Benchmark
+    public void transactionAggregationEngine(Blackhole bh) {
+        TransactionAggregationEngine engine = TransactionAggregationEngine.of(data, FROM, TO, dateConverter);
+        bh.consume(engine.getTotalSpending());
+        bh.consume(engine.getTotalIncome());
+        bh.consume(engine.getDailyTotals());
+        bh.consume(engine.getDailySpendingTotals());
+        bh.consume(engine.getDailyIncomeTotals());
+        bh.consume(engine.getCategorySpending());
+        bh.consume(engine.getCategoryIncome());
+    }
+}
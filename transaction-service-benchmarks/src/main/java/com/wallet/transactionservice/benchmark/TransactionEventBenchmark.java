@@ -0,0 +1,63 @@
+package com.wallet.transactionservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transactionservice.dto.TransactionEvent;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.mapper.TransactionMapper;
+import com.wallet.transactionservice.mapper.TransactionMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The outbox payload path of TransactionService: entity -> TransactionEvent -> JSON
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionEventBenchmark {
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 1, 31);
+
+    @Param({"1000", "100000"})
+    private int transactions;
+
+    private final TransactionMapper transactionMapper = new TransactionMapperImpl();
+    // Built the way Spring Boot builds the application ObjectMapper
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<Transaction> data;
+    private TransactionEvent[] events;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        data = new BenchmarkData().confirmedTransactions(transactions, FROM, TO);
+        events = data.stream().map(transactionMapper::toEvent).toArray(TransactionEvent[]::new);
+    }
+
+    @Benchmark
+    public TransactionEvent toEvent() {
+        return transactionMapper.toEvent(data.get(nextIndex()));
+    }
+
+    @Benchmark
+    public String serializeEvent() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(events[nextIndex()]);
+    }
+
+    @Benchmark
+    public String toEventAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(transactionMapper.toEvent(data.get(nextIndex())));
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = next + 1 == transactions ? 0 : next + 1;
+        return i;
+    }
+}
@@ -0,0 +1,27 @@
+package com.wallet.transactionservice.actuator;
+
+import com.wallet.transactionservice.dto.RollupRebuildReport;
+import com.wallet.transactionservice.service.CardDailyRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+// GET /actuator/rollup compares the rollup with transaction_, POST /actuator/rollup repairs it
+@Component
+@Endpoint(id = "rollup")
+@RequiredArgsConstructor
+public class CardDailyRollupEndpoint {
+    private final CardDailyRollupService cardDailyRollupService;
+
+    @ReadOperation
+    public RollupRebuildReport verify() {
+        return cardDailyRollupService.verify();
+    }
+
+    @WriteOperation
+    public RollupRebuildReport rebuild() {
+        return cardDailyRollupService.rebuild();
+    }
+}
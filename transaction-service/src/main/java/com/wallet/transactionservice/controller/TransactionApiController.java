@@ -1,11 +1,14 @@
 package com.wallet.transactionservice.controller;
 
 import com.wallet.transactionservice.dto.*;
+import com.wallet.transactionservice.enums.ExportFormat;
 import com.wallet.transactionservice.exception.FieldValidationException;
 import com.wallet.transactionservice.exception.IncorrectSearchPath;
 import com.wallet.transactionservice.exception.InvalidAuthorizationException;
 import com.wallet.transactionservice.service.JwtService;
 import com.wallet.transactionservice.service.PaymentOrchestrator;
+import com.wallet.transactionservice.service.PeriodResponseCache;
+import com.wallet.transactionservice.service.TransactionExportService;
 import com.wallet.transactionservice.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,16 +20,26 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequiredArgsConstructor
@@ -36,6 +49,8 @@ public class TransactionApiController {
     private final TransactionService transactionService;
     private final JwtService jwtService;
     private final PaymentOrchestrator paymentOrchestrator;
+    private final TransactionExportService transactionExportService;
+    private final PeriodResponseCache periodResponseCache;
 
     @Operation(summary = "Catch-all for unknown paths", description = "Returns 404 for unsupported transaction API paths.", hidden = true)
     @RequestMapping(value = "/**")
@@ -81,6 +96,26 @@ public class TransactionApiController {
         return new ResponseEntity<>(new ApiStatusResponse(true,"Payment completed"), HttpStatus.OK);
     }
 
+    @Operation(summary = "Initiate bulk payment", description = "Settles several offers of the user in one request. Offers are validated against the running total of their card, and each card is debited once. Offers that need OTP verification are rejected and have to be paid separately.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Result of every payment, in request order", content = @Content(schema = @Schema(implementation = BulkPaymentResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request or validation failed", content = @Content(schema = @Schema(implementation = ValidationErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Invalid or missing authorization")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PostMapping("/bulk")
+    public BulkPaymentResponseDto initiateBulkPayment(
+            @RequestBody @Valid BulkPaymentRequestDto request,
+            BindingResult bindingResult,
+            @RequestHeader("Authorization") String authorizationHeader) {
+        validateInput(bindingResult);
+
+        String jwt = extractJwtFromHeader(authorizationHeader);
+        UUID userId = UUID.fromString(jwtService.extractUserIdFromJwt(jwt));
+
+        return paymentOrchestrator.processBulkPayment(userId, request.getPayments());
+    }
+
     @Operation(summary = "Cancel transaction", description = "Cancels an existing transaction by ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Transaction cancelled successfully"),
@@ -115,6 +150,19 @@ public class TransactionApiController {
         return transactionService.getRecentTransactions(cardNumber, count);
     }
 
+    @Operation(summary = "Get recent transactions for several cards", description = "Returns the most recent transactions of every requested card in one call, keyed by card number.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recent transactions by card number"),
+            @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content(schema = @Schema(implementation = ValidationErrorResponse.class)))
+    })
+    @PostMapping("/cards/recent")
+    public Map<String, List<TransactionDto>> getRecentTransactionsByCards(
+            @RequestBody @Valid RecentTransactionsRequestDto request,
+            BindingResult bindingResult) {
+        validateInput(bindingResult);
+        return transactionService.getRecentTransactions(request.getCardNumbers(), request.getCount());
+    }
+
     @Operation(summary = "Get last used card numbers", description = "Returns card numbers recently used by the user, with pagination.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of card numbers")
@@ -130,100 +178,130 @@ public class TransactionApiController {
     @Operation(summary = "Get transactions by period", description = "Returns transactions for a card within the given date range, grouped by period.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Grouped transactions", content = @Content(schema = @Schema(implementation = PeriodGroupedTransactionsDto.class))),
+            @ApiResponse(responseCode = "304", description = "Closed period unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Invalid request or validation failed"),
             @ApiResponse(responseCode = "401", description = "Invalid or missing authorization"),
             @ApiResponse(responseCode = "403", description = "User has no access to the card")
     })
     @SecurityRequirement(name = "Bearer Authentication")
     @PostMapping("/period")
-    public PeriodGroupedTransactionsDto getTransactions(
+    public ResponseEntity<byte[]> getTransactions(
             @RequestBody @Valid CardTransactionsRequestDto request,
-            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Opaque cursor from the previous page's nextCursor; omit for the first page") @RequestParam(required = false) String cursor,
             BindingResult bindingResult,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestHeader("Authorization") String authorizationHeader) {
         validateInput(bindingResult);
         String jwt = extractJwtFromHeader(authorizationHeader);
         UUID userId = UUID.fromString(jwtService.extractUserIdFromJwt(jwt));
 
-        transactionService.validateUserCardAccessWithDate(
-                request.getCardNumber(),
-                userId,
-                LocalDate.parse(request.getFrom()),
-                LocalDate.parse(request.getTo())
-        );
+        LocalDate from = LocalDate.parse(request.getFrom());
+        LocalDate to = LocalDate.parse(request.getTo());
+        transactionService.validateUserCardAccessWithDate(request.getCardNumber(), userId, from, to);
 
-        return transactionService.getTransactionsByPeriod(
-                request.getCardNumber(),
-                LocalDate.parse(request.getFrom()),
-                LocalDate.parse(request.getTo()),
-                page
-        );
+        return periodResponse("period", request.getCardNumber(), from, to, cursor, ifNoneMatch,
+                () -> transactionService.getTransactionsByPeriod(request.getCardNumber(), from, to, cursor));
+    }
+
+    @Operation(summary = "Export transactions by period", description = "Streams every transaction of a card within the given date range as CSV or NDJSON, oldest first. The response is gzip-encoded when the client accepts it.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transaction export"),
+            @ApiResponse(responseCode = "400", description = "Invalid request or validation failed"),
+            @ApiResponse(responseCode = "401", description = "Invalid or missing authorization"),
+            @ApiResponse(responseCode = "403", description = "User has no access to the card")
+    })
+    @SecurityRequirement(name = "Bearer Authentication")
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestBody @Valid CardTransactionsRequestDto request,
+            BindingResult bindingResult,
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader("Authorization") String authorizationHeader) {
+        validateInput(bindingResult);
+        String jwt = extractJwtFromHeader(authorizationHeader);
+        UUID userId = UUID.fromString(jwtService.extractUserIdFromJwt(jwt));
+
+        LocalDate from = LocalDate.parse(request.getFrom());
+        LocalDate to = LocalDate.parse(request.getTo());
+        transactionService.validateUserCardAccessWithDate(request.getCardNumber(), userId, from, to);
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            transactionExportService.export(request.getCardNumber(), from, to, format, target);
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("transactions-" + from + "-" + to + "." + format.getFileExtension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     @Operation(summary = "Get expense by period", description = "Returns expense transactions for a card within the given date range, grouped by period.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Grouped expense data", content = @Content(schema = @Schema(implementation = PeriodGroupedExpenseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Closed period unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Invalid request or validation failed"),
             @ApiResponse(responseCode = "401", description = "Invalid or missing authorization"),
             @ApiResponse(responseCode = "403", description = "User has no access to the card")
     })
     @SecurityRequirement(name = "Bearer Authentication")
     @PostMapping("/expense/period")
-    public PeriodGroupedExpenseDto getExpense(
+    public ResponseEntity<byte[]> getExpense(
             @RequestBody @Valid CardTransactionsRequestDto request,
-            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Opaque cursor from the previous page's nextCursor; omit for the first page") @RequestParam(required = false) String cursor,
             BindingResult bindingResult,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestHeader("Authorization") String authorizationHeader) {
         validateInput(bindingResult);
         String jwt = extractJwtFromHeader(authorizationHeader);
         UUID userId = UUID.fromString(jwtService.extractUserIdFromJwt(jwt));
 
-        transactionService.validateUserCardAccessWithDate(
-                request.getCardNumber(),
-                userId,
-                LocalDate.parse(request.getFrom()),
-                LocalDate.parse(request.getTo())
-        );
+        LocalDate from = LocalDate.parse(request.getFrom());
+        LocalDate to = LocalDate.parse(request.getTo());
+        transactionService.validateUserCardAccessWithDate(request.getCardNumber(), userId, from, to);
 
-        return transactionService.getExpenseTransactionsByPeriod(
-                request.getCardNumber(),
-                LocalDate.parse(request.getFrom()),
-                LocalDate.parse(request.getTo()),
-                page
-        );
+        return periodResponse("expense", request.getCardNumber(), from, to, cursor, ifNoneMatch,
+                () -> transactionService.getExpenseTransactionsByPeriod(request.getCardNumber(), from, to, cursor));
     }
 
     @Operation(summary = "Get income by period", description = "Returns income transactions for a card within the given date range, grouped by period.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Grouped income data", content = @Content(schema = @Schema(implementation = PeriodGroupedIncomeDto.class))),
+            @ApiResponse(responseCode = "304", description = "Closed period unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "400", description = "Invalid request or validation failed"),
             @ApiResponse(responseCode = "401", description = "Invalid or missing authorization"),
             @ApiResponse(responseCode = "403", description = "User has no access to the card")
     })
     @SecurityRequirement(name = "Bearer Authentication")
     @PostMapping("/income/period")
-    public PeriodGroupedIncomeDto getIncome(
+    public ResponseEntity<byte[]> getIncome(
             @RequestBody @Valid CardTransactionsRequestDto request,
-            @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Opaque cursor from the previous page's nextCursor; omit for the first page") @RequestParam(required = false) String cursor,
             BindingResult bindingResult,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
             @RequestHeader("Authorization") String authorizationHeader) {
         validateInput(bindingResult);
         String jwt = extractJwtFromHeader(authorizationHeader);
         UUID userId = UUID.fromString(jwtService.extractUserIdFromJwt(jwt));
 
-        transactionService.validateUserCardAccessWithDate(
-                request.getCardNumber(),
-                userId,
-                LocalDate.parse(request.getFrom()),
-                LocalDate.parse(request.getTo())
-        );
+        LocalDate from = LocalDate.parse(request.getFrom());
+        LocalDate to = LocalDate.parse(request.getTo());
+        transactionService.validateUserCardAccessWithDate(request.getCardNumber(), userId, from, to);
 
-        return transactionService.getIncomeTransactionsByPeriod(
-                request.getCardNumber(),
-                LocalDate.parse(request.getFrom()),
-                LocalDate.parse(request.getTo()),
-                page
-        );
+        return periodResponse("income", request.getCardNumber(), from, to, cursor, ifNoneMatch,
+                () -> transactionService.getIncomeTransactionsByPeriod(request.getCardNumber(), from, to, cursor));
     }
 
     @Operation(summary = "Get expense analytics report link", description = "Generates or retrieves an expense analytics report for the card and period, returns report URL.")
@@ -259,6 +337,30 @@ public class TransactionApiController {
         return new ResponseEntity<>(new ApiStatusResponse(true, reportLink), HttpStatus.OK);
     }
 
+    // Periods that ended before today carry an ETag built from their version: a matching If-None-Match costs one
+    // index-only query, and a repeat view is served from the cache without aggregating or serializing again
+    private ResponseEntity<byte[]> periodResponse(String view, String cardNumber, LocalDate from, LocalDate to, String cursor,
+                                                  String ifNoneMatch, Supplier<?> response) {
+        Optional<PeriodVersion> version = transactionService.getClosedPeriodVersion(cardNumber, from, to);
+        if (version.isEmpty()) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(periodResponseCache.serialize(response.get()));
+        }
+
+        String etag = periodResponseCache.etag(view, cardNumber, from, to, cursor, version.get());
+        // Late transactions can still change a closed period, so clients have to revalidate every time
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (PeriodResponseCache.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(periodResponseCache.get(etag, response));
+    }
+
     private String extractJwtFromHeader(String authorizationHeader) {
         if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
             throw new InvalidAuthorizationException("Invalid authorization header");
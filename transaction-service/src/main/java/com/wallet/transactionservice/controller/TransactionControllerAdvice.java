@@ -58,6 +58,13 @@ public class TransactionControllerAdvice {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ResponseEntity<ApiStatusResponse> handleInvalidCursorException(InvalidCursorException e) {
+        ApiStatusResponse response = new ApiStatusResponse(false, e.getMessage());
+        return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(CardAccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ResponseEntity<ApiStatusResponse> handleCardAccessDeniedException(CardAccessDeniedException e) {
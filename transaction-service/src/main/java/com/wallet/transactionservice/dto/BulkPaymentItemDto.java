@@ -0,0 +1,12 @@
+package com.wallet.transactionservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkPaymentItemDto extends PaymentRequestDto {
+    @NotEmpty(message = "Field 'offerId' shouldn't be empty")
+    private String offerId;
+}
@@ -0,0 +1,17 @@
+package com.wallet.transactionservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BulkPaymentRequestDto {
+    @NotEmpty(message = "Field 'payments' shouldn't be empty")
+    @Size(max = 100, message = "Field 'payments' should contain at most 100 payments")
+    private List<@Valid BulkPaymentItemDto> payments;
+}
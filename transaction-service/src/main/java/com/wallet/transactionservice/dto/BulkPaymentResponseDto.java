@@ -0,0 +1,15 @@
+package com.wallet.transactionservice.dto;
+
+import java.util.List;
+
+// Results are in the order of the request
+public record BulkPaymentResponseDto(
+        int succeeded,
+        int failed,
+        List<BulkPaymentResult> results
+) {
+    public static BulkPaymentResponseDto of(List<BulkPaymentResult> results) {
+        int succeeded = (int) results.stream().filter(BulkPaymentResult::success).count();
+        return new BulkPaymentResponseDto(succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,15 @@
+package com.wallet.transactionservice.dto;
+
+public record BulkPaymentResult(
+        String offerId,
+        boolean success,
+        String message
+) {
+    public static BulkPaymentResult success(String offerId) {
+        return new BulkPaymentResult(offerId, true, "Payment completed");
+    }
+
+    public static BulkPaymentResult failure(String offerId, String message) {
+        return new BulkPaymentResult(offerId, false, message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.wallet.transactionservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record CardHoldDto(
+        UUID holdId,
+        BigDecimal amount
+) {
+}
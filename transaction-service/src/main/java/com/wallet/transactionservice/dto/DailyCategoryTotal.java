@@ -0,0 +1,10 @@
+package com.wallet.transactionservice.dto;
+
+import java.math.BigDecimal;
+
+public interface DailyCategoryTotal {
+    long getEpochDay();
+    String getCategory();
+    BigDecimal getAmount();
+    int getTransactionCount();
+}
@@ -0,0 +1,16 @@
+package com.wallet.transactionservice.dto;
+
+import com.wallet.transactionservice.entity.PaymentOfferEntity;
+
+import java.util.List;
+import java.util.UUID;
+
+// One committed chunk of expired pending transactions: their card holds to release and offers to put back into Redis
+public record ExpiredTransactions(
+        List<UUID> transactionIds,
+        List<PaymentOfferEntity> offers) {
+
+    public boolean isEmpty() {
+        return transactionIds.isEmpty();
+    }
+}
@@ -0,0 +1,13 @@
+package com.wallet.transactionservice.dto;
+
+import java.util.List;
+
+// Everything the period views need for a whole month: the day/category totals and the first page of each listing,
+// read with pageSize + 1 rows like the live queries, so the next cursor can be derived from it
+public record MonthlyStatementDocument(
+        int pageSize,
+        List<StatementDayTotal> totals,
+        List<TransactionRow> transactions,
+        List<TransactionRow> expenses,
+        List<TransactionRow> income) {
+}
@@ -6,6 +6,7 @@ import java.util.List;
 public record PeriodGroupedExpenseDto(
         BigDecimal totalSpending,
         List<CategorySpending> spendingByCategory,
-        List<DailyTransactionDto> dailyTransactions
+        List<DailyTransactionDto> dailyTransactions,
+        String nextCursor
 ) {
 }
@@ -6,6 +6,7 @@ import java.util.List;
 public record PeriodGroupedIncomeDto(
         BigDecimal totalIncome,
         List<CategoryIncome> incomeByCategory,
-        List<DailyTransactionDto> dailyTransactions
+        List<DailyTransactionDto> dailyTransactions,
+        String nextCursor
 ) {
 }
@@ -6,6 +6,7 @@ import java.util.List;
 public record PeriodGroupedTransactionsDto(
         BigDecimal totalSpending,
         BigDecimal totalIncome,
-        List<DailyTransactionDto> dailyTransactions
+        List<DailyTransactionDto> dailyTransactions,
+        String nextCursor
 ) {
 }
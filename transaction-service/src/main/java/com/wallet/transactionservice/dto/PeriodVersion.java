@@ -0,0 +1,8 @@
+package com.wallet.transactionservice.dto;
+
+// Changes whenever a transaction confirmed in the period is added or changes status
+public interface PeriodVersion {
+    long getTransactionCount();
+    long getConfirmedCount();
+    long getLastConfirmedAt();
+}
@@ -0,0 +1,17 @@
+package com.wallet.transactionservice.dto;
+
+import com.wallet.transactionservice.enums.TransactionCategory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Native-query counterpart of TransactionRow
+public interface RecentTransactionView {
+    UUID getId();
+    String getVendor();
+    TransactionCategory getCategory();
+    BigDecimal getAmount();
+    String getCardNumber();
+    Instant getConfirmedAt();
+}
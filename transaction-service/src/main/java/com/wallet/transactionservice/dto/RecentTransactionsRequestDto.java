@@ -0,0 +1,22 @@
+package com.wallet.transactionservice.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RecentTransactionsRequestDto {
+    @NotEmpty(message = "Field 'cardNumbers' shouldn't be empty")
+    @Size(max = 50, message = "Field 'cardNumbers' should contain at most 50 card numbers")
+    private List<String> cardNumbers;
+
+    @Min(value = 1, message = "Field 'count' should be at least 1")
+    @Max(value = 50, message = "Field 'count' should be at most 50")
+    private int count;
+}
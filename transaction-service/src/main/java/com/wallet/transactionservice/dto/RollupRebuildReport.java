@@ -0,0 +1,8 @@
+package com.wallet.transactionservice.dto;
+
+public record RollupRebuildReport(
+        int chunks,
+        long rows,
+        long elapsedMs
+) {
+}
@@ -0,0 +1,15 @@
+package com.wallet.transactionservice.dto;
+
+import java.math.BigDecimal;
+
+// Spending of a card within each rolling window, as absolute amounts
+public record SpendTotals(
+        long minuteCount,
+        BigDecimal minuteAmount,
+        long dayCount,
+        BigDecimal dayAmount,
+        long monthCount,
+        BigDecimal monthAmount
+) {
+    public static final SpendTotals EMPTY = new SpendTotals(0, BigDecimal.ZERO, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO);
+}
@@ -0,0 +1,24 @@
+package com.wallet.transactionservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// Stored form of a DailyCategoryTotal inside a MonthlyStatementDocument
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementDayTotal implements DailyCategoryTotal {
+    private long epochDay;
+    private String category;
+    private BigDecimal amount;
+    private int transactionCount;
+
+    public static StatementDayTotal of(DailyCategoryTotal total) {
+        return new StatementDayTotal(total.getEpochDay(), total.getCategory(), total.getAmount(), total.getTransactionCount());
+    }
+}
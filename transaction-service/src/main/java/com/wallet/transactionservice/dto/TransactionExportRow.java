@@ -0,0 +1,18 @@
+package com.wallet.transactionservice.dto;
+
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.enums.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+public record TransactionExportRow(
+        UUID id,
+        Instant confirmedAt,
+        String vendor,
+        TransactionCategory category,
+        BigDecimal amount,
+        BigDecimal fee,
+        TransactionStatus status) {
+}
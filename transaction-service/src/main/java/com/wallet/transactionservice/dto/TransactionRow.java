@@ -0,0 +1,17 @@
+package com.wallet.transactionservice.dto;
+
+import com.wallet.transactionservice.enums.TransactionCategory;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+// Listing projection: the transaction columns plus the offer fields a TransactionDto needs, read in one joined query
+public record TransactionRow(
+        UUID id,
+        String vendor,
+        TransactionCategory category,
+        BigDecimal amount,
+        String cardNumber,
+        Instant confirmedAt) {
+}
@@ -0,0 +1,29 @@
+package com.wallet.transactionservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// A pending capture of the hold of a confirmed transaction (the hold id is the transaction id)
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "card_capture")
+public class CardCapture {
+    @Id
+    private UUID transactionId;
+
+    @Column
+    private String cardNumber;
+
+    @Column
+    private Instant createdAt;
+
+    @Column
+    private int attempts;
+}
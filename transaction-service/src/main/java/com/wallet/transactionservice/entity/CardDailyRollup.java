@@ -0,0 +1,35 @@
+package com.wallet.transactionservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// A category has a fixed sign (TransactionCategory.applySign), so one signed sum per (card, day, category) is enough
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "card_daily_rollup")
+public class CardDailyRollup {
+    @EmbeddedId
+    private CardDailyRollupId id;
+
+    @Column
+    private BigDecimal amount;
+
+    @Column
+    private int transactionCount;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" +
+                "cardNumber = " + id.getCardNumber() + ", " +
+                "day = " + id.getDay() + ", " +
+                "category = " + id.getCategory() + ", " +
+                "amount = " + amount + ", " +
+                "transactionCount = " + transactionCount + ")";
+    }
+}
@@ -0,0 +1,25 @@
+package com.wallet.transactionservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class CardDailyRollupId implements Serializable {
+    @Column
+    private String cardNumber;
+
+    @Column
+    private LocalDate day;
+
+    @Column
+    private String category;
+}
@@ -0,0 +1,40 @@
+package com.wallet.transactionservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "card_monthly_statement")
+public class CardMonthlyStatement {
+    @EmbeddedId
+    private CardMonthlyStatementId id;
+
+    @Column
+    private boolean stale;
+
+    @Column
+    private String document;
+
+    @Column
+    private Integer pageSize;
+
+    @Column
+    private Instant computedAt;
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" +
+                "cardNumber = " + id.getCardNumber() + ", " +
+                "month = " + id.getMonth() + ", " +
+                "stale = " + stale + ", " +
+                "pageSize = " + pageSize + ", " +
+                "computedAt = " + computedAt + ")";
+    }
+}
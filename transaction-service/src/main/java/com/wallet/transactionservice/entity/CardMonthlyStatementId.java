@@ -0,0 +1,23 @@
+package com.wallet.transactionservice.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class CardMonthlyStatementId implements Serializable {
+    @Column
+    private String cardNumber;
+
+    // First day of the month
+    @Column
+    private LocalDate month;
+}
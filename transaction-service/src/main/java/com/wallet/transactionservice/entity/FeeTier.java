@@ -0,0 +1,41 @@
+package com.wallet.transactionservice.entity;
+
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// A null category or card type matches any; see FeeSchedule for how tiers are resolved
+@Entity
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "fee_tier")
+public class FeeTier {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fee_tier_id_seq")
+    @SequenceGenerator(name = "fee_tier_id_seq", sequenceName = "fee_tier_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionCategory category;
+
+    @Enumerated(EnumType.STRING)
+    private CardType cardType;
+
+    @Column
+    private BigDecimal minAmount;
+
+    @Column
+    private BigDecimal rate;
+
+    @Column
+    private BigDecimal fixedFee;
+
+    @Column
+    private BigDecimal maxFee;
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Builder
 @AllArgsConstructor
@@ -14,7 +15,8 @@ import java.time.Instant;
 @Table(name = "outbox")
 public class OutboxEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_seq")
+    @SequenceGenerator(name = "outbox_id_seq", sequenceName = "outbox_id_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -23,6 +25,12 @@ public class OutboxEvent {
     @Column
     private String payload;
 
+    @Column
+    private String cardNumber;
+
+    @Column
+    private UUID userId;
+
     @Column
     private Instant createdAt;
 }
@@ -5,6 +5,7 @@ import com.wallet.transactionservice.enums.TransactionCategory;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -17,7 +18,7 @@ import java.util.Objects;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "payment_offer")
-public class PaymentOfferEntity {
+public class PaymentOfferEntity implements Persistable<String> {
     @Id
     private String id;
 
@@ -45,6 +46,25 @@ public class PaymentOfferEntity {
     @Column
     private Instant completedAt;
 
+    // The id comes from the offer, so Spring Data can't tell a new entity by it. Without this flag every save of a
+    // new offer would be a merge that SELECTs the row first; see PaymentOfferEntityService for re-claimed offers.
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    public void markNotNew() {
+        newEntity = false;
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,34 @@
+package com.wallet.transactionservice.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Rolling windows of the per-card spend counters. A window is kept as fixed buckets, so it rolls forward one bucket
+// at a time and covers between length - bucket and length of history.
+@Getter
+@RequiredArgsConstructor
+public enum SpendWindow {
+    MINUTE("minute", Duration.ofMinutes(1), Duration.ofSeconds(10)),
+    DAY("day", Duration.ofDays(1), Duration.ofHours(1)),
+    MONTH("month", Duration.ofDays(30), Duration.ofDays(1));
+
+    private final String key;
+    private final Duration length;
+    private final Duration bucket;
+
+    public long bucketOf(Instant instant) {
+        return instant.toEpochMilli() / bucket.toMillis();
+    }
+
+    public long oldestLiveBucket(Instant now) {
+        return bucketOf(now) - length.toMillis() / bucket.toMillis() + 1;
+    }
+
+    // Long enough for the newest bucket to leave the window
+    public long ttlMs() {
+        return length.toMillis() + bucket.toMillis();
+    }
+}
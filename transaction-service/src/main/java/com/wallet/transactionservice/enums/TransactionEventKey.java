@@ -0,0 +1,7 @@
+package com.wallet.transactionservice.enums;
+
+// Record key of transaction events; events with the same key land in one partition and keep their order
+public enum TransactionEventKey {
+    CARD_NUMBER,
+    USER_ID
+}
@@ -3,5 +3,7 @@ package com.wallet.transactionservice.enums;
 public enum TransactionEventType {
     TRANSACTION_SUCCESSFUL,
     TRANSACTION_CANCELLED,
-    TRANSACTION_FAILED
+    TRANSACTION_FAILED,
+    // A confirmed transaction failed afterwards because its hold could no longer be captured
+    TRANSACTION_REVERSED
 }
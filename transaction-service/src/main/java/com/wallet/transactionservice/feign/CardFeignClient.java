@@ -1,5 +1,6 @@
 package com.wallet.transactionservice.feign;
 
+import com.wallet.transactionservice.dto.CardHoldDto;
 import com.wallet.transactionservice.dto.CardInfoDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.HttpStatus;
@@ -7,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 @FeignClient(name = "${digital-wallet-platform.services.card-service.uri}")
@@ -15,8 +17,27 @@ public interface CardFeignClient {
     @GetMapping("/api/v1/cards/{card_number}/lookup")
     CardInfoDto getCardByNumber(@PathVariable("card_number") String number);
 
-    @PostMapping("/api/v1/cards/{card_number}/payment")
-    ResponseEntity<HttpStatus> createPayment(@PathVariable("card_number") String cardNumber,
-                                             @RequestParam("userId") UUID userId,
-                                             @RequestParam("amount") BigDecimal amount);
+    // Holds are keyed by the transaction id, so every call below can be retried
+    @PostMapping("/api/v1/cards/{card_number}/holds/{hold_id}")
+    ResponseEntity<HttpStatus> authorizePayment(@PathVariable("card_number") String cardNumber,
+                                                @PathVariable("hold_id") UUID holdId,
+                                                @RequestParam("userId") UUID userId,
+                                                @RequestParam("amount") BigDecimal amount);
+
+    @PostMapping("/api/v1/cards/{card_number}/holds/{hold_id}/capture")
+    ResponseEntity<HttpStatus> capturePayment(@PathVariable("card_number") String cardNumber,
+                                              @PathVariable("hold_id") UUID holdId);
+
+    // One reservation per card for the sum of all holds, created all together or not at all
+    @PostMapping("/api/v1/cards/{card_number}/holds")
+    ResponseEntity<HttpStatus> authorizePayments(@PathVariable("card_number") String cardNumber,
+                                                 @RequestParam("userId") UUID userId,
+                                                 @RequestBody List<CardHoldDto> holds);
+
+    @PostMapping("/api/v1/cards/{card_number}/holds/capture")
+    ResponseEntity<HttpStatus> capturePayments(@PathVariable("card_number") String cardNumber,
+                                               @RequestBody List<UUID> holdIds);
+
+    @PostMapping("/api/v1/cards/holds/release")
+    ResponseEntity<HttpStatus> releaseHolds(@RequestBody List<UUID> holdIds);
 }
@@ -1,11 +1,13 @@
 package com.wallet.transactionservice.kafka;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -50,6 +52,20 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.properties.max.in.flight.requests.per.connection}")
     private Integer maxInFlightRequests;
 
+    @Value("${transaction.outbox.topic}")
+    private String transactionEventsTopic;
+
+    @Value("${transaction.outbox.partitions}")
+    private int transactionEventsPartitions;
+
+    // Consumers can run one thread per partition; KafkaAdmin only ever adds partitions to an existing topic
+    @Bean
+    public NewTopic transactionEventsTopic() {
+        return TopicBuilder.name(transactionEventsTopic)
+                .partitions(transactionEventsPartitions)
+                .build();
+    }
+
     @Bean
     public <T> ProducerFactory<String, T> producerFactory() {
         Map<String, Object> config = new HashMap<>();
@@ -1,36 +1,72 @@
 package com.wallet.transactionservice.kafka;
 
 import com.wallet.transactionservice.entity.OutboxEvent;
-import lombok.AllArgsConstructor;
+import com.wallet.transactionservice.enums.TransactionEventKey;
 import lombok.RequiredArgsConstructor;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 @RequiredArgsConstructor
 public class TransactionKafkaProducer {
+    public static final String EVENT_TYPE_HEADER = "event-type";
+    public static final String SCHEMA_VERSION_HEADER = "schema-version";
+    // Bump with incompatible changes of the TransactionEvent payload
+    private static final String SCHEMA_VERSION = "1";
+
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final Logger LOGGER = LoggerFactory.getLogger(this.getClass());
 
     @Value("${transaction.outbox.topic}")
     private String topic;
 
-    public void sendTransactionEvent(OutboxEvent event) {
+    @Value("${transaction.outbox.key}")
+    private TransactionEventKey key;
+
+    // Completes when the broker acknowledges the record; failures are left to the caller
+    public CompletableFuture<SendResult<String, String>> sendTransactionEvent(OutboxEvent event) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(
+                topic,
+                null,
+                keyOf(event),
+                event.getPayload(),
+                List.of(
+                        new RecordHeader(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8)),
+                        new RecordHeader(SCHEMA_VERSION_HEADER, SCHEMA_VERSION.getBytes(StandardCharsets.UTF_8))
+                )
+        );
+        CompletableFuture<SendResult<String, String>> ack;
         try {
-            ProducerRecord<String, String> record = new ProducerRecord<>(
-                    topic,
-                    event.getId().toString(),
-                    event.getPayload()
-            );
-            kafkaTemplate.send(record);
-            logEvent(record);
+            ack = kafkaTemplate.send(record);
         } catch (Exception e) {
-            System.err.println("Failed to send event with ID " + event.getId() + ": " + e.getMessage());
+            ack = CompletableFuture.failedFuture(e);
         }
+        return ack.whenComplete((result, e) -> {
+            if (e == null) {
+                logEvent(record);
+            } else {
+                LOGGER.error("Failed to send event with ID {}: {}", event.getId(), e.getMessage());
+            }
+        });
+    }
+
+    // Rows written before the key columns existed fall back to the outbox id, as before
+    public String keyOf(OutboxEvent event) {
+        Object value = switch (key) {
+            case CARD_NUMBER -> event.getCardNumber();
+            case USER_ID -> event.getUserId();
+        };
+        return value != null ? value.toString() : event.getId().toString();
     }
 
     private void logEvent(ProducerRecord<String, String> record) {
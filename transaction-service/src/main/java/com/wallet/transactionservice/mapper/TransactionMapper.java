@@ -1,18 +1,21 @@
 package com.wallet.transactionservice.mapper;
 
+import com.wallet.transactionservice.dto.RecentTransactionView;
 import com.wallet.transactionservice.dto.TransactionDto;
 import com.wallet.transactionservice.dto.TransactionEvent;
 import com.wallet.transactionservice.dto.TransactionInfoDto;
+import com.wallet.transactionservice.dto.TransactionRow;
 import com.wallet.transactionservice.entity.Transaction;
 import org.mapstruct.*;
 
 @Mapper(unmappedTargetPolicy = ReportingPolicy.IGNORE,
         componentModel = MappingConstants.ComponentModel.SPRING)
 public interface TransactionMapper {
-    @Mapping(source = "offer.vendor", target = "vendor")
-    @Mapping(source = "offer.category", target = "category")
     @Mapping(source = "confirmedAt", target = "completedAt")
-    TransactionDto toDto(Transaction transaction);
+    TransactionDto toDto(TransactionRow transaction);
+
+    @Mapping(source = "confirmedAt", target = "completedAt")
+    TransactionDto toDto(RecentTransactionView transaction);
 
     @Mapping(source = "offer.id", target = "offerId", qualifiedByName = "extractOfferId")
     @Mapping(target = "transactionType", ignore = true)
@@ -0,0 +1,48 @@
+package com.wallet.transactionservice.repository;
+
+import com.wallet.transactionservice.entity.CardCapture;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CardCaptureRepository extends JpaRepository<CardCapture, UUID> {
+
+    @Modifying
+    @Query(value = "INSERT INTO card_capture (transaction_id, card_number, created_at) " +
+            "SELECT id, :cardNumber, NOW() " +
+            "FROM unnest(CAST(:transactionIds AS UUID[])) AS id " +
+            "ON CONFLICT (transaction_id) DO NOTHING",
+    nativeQuery = true)
+    int insertAll(@Param("cardNumber") String cardNumber, @Param("transactionIds") UUID[] transactionIds);
+
+    // Rows taken by a concurrent capture of the same holds are skipped; that capture deletes them
+    @Query(value = "SELECT * FROM card_capture " +
+            "WHERE transaction_id IN (:transactionIds) " +
+            "FOR UPDATE SKIP LOCKED",
+    nativeQuery = true)
+    List<CardCapture> lockAll(@Param("transactionIds") Collection<UUID> transactionIds);
+
+    @Query(value = "SELECT * FROM card_capture " +
+            "WHERE created_at < :before " +
+            "ORDER BY created_at " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED",
+    nativeQuery = true)
+    List<CardCapture> claimDue(@Param("before") Instant before, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE CardCapture c SET c.attempts = c.attempts + 1 WHERE c.transactionId IN :transactionIds")
+    int incrementAttempts(@Param("transactionIds") Collection<UUID> transactionIds);
+
+    @Modifying
+    @Query("DELETE FROM CardCapture c WHERE c.transactionId IN :transactionIds")
+    int deleteAllByIdIn(@Param("transactionIds") Collection<UUID> transactionIds);
+}
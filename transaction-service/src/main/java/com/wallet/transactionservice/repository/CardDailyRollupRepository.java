@@ -0,0 +1,94 @@
+package com.wallet.transactionservice.repository;
+
+import com.wallet.transactionservice.dto.DailyCategoryTotal;
+import com.wallet.transactionservice.entity.CardDailyRollup;
+import com.wallet.transactionservice.entity.CardDailyRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CardDailyRollupRepository extends JpaRepository<CardDailyRollup, CardDailyRollupId> {
+
+    @Modifying
+    @Query(value = "INSERT INTO card_daily_rollup (card_number, day, category, amount, transaction_count) " +
+            "VALUES (:cardNumber, :day, :category, :amount, :count) " +
+            "ON CONFLICT (card_number, day, category) DO UPDATE " +
+            "SET amount = card_daily_rollup.amount + EXCLUDED.amount, " +
+            "transaction_count = card_daily_rollup.transaction_count + EXCLUDED.transaction_count",
+    nativeQuery = true)
+    void addDelta(@Param("cardNumber") String cardNumber,
+                  @Param("day") LocalDate day,
+                  @Param("category") String category,
+                  @Param("amount") BigDecimal amount,
+                  @Param("count") int count);
+
+    @Query(value = "SELECT CAST(r.day - DATE '1970-01-01' AS BIGINT) AS \"epochDay\", " +
+            "r.category AS \"category\", " +
+            "r.amount AS \"amount\", " +
+            "r.transaction_count AS \"transactionCount\" " +
+            "FROM card_daily_rollup r " +
+            "WHERE r.card_number = :cardNumber " +
+            "AND r.day BETWEEN :from AND :to " +
+            "AND r.transaction_count > 0",
+    nativeQuery = true)
+    List<DailyCategoryTotal> findDailyCategoryTotals(@Param("cardNumber") String cardNumber,
+                                                     @Param("from") LocalDate from,
+                                                     @Param("to") LocalDate to);
+
+    // Cards are split into chunks by hash. The difference between transaction_ and the rollup is applied as a delta,
+    // so finishTransaction upserts committed while a chunk is being rebuilt are kept rather than overwritten
+    @Modifying
+    @Query(value = "WITH recomputed AS (" +
+            "SELECT t.card_number, CAST(t.confirmed_at AT TIME ZONE 'UTC' AS DATE) AS day, o.category, " +
+            "SUM(t.amount) AS amount, COUNT(*) AS transaction_count " +
+            "FROM transaction_ t " +
+            "JOIN payment_offer o ON o.id = t.offer_id " +
+            "WHERE t.status = 'CONFIRMED' " +
+            "AND (hashtext(t.card_number) & 2147483647) % :chunks = :chunk " +
+            "GROUP BY 1, 2, 3" +
+            "), existing AS (" +
+            "SELECT card_number, day, category, amount, transaction_count " +
+            "FROM card_daily_rollup " +
+            "WHERE (hashtext(card_number) & 2147483647) % :chunks = :chunk" +
+            "), diff AS (" +
+            "SELECT card_number, day, category, " +
+            "COALESCE(c.amount, 0) - COALESCE(e.amount, 0) AS amount, " +
+            "COALESCE(c.transaction_count, 0) - COALESCE(e.transaction_count, 0) AS transaction_count " +
+            "FROM recomputed c FULL OUTER JOIN existing e USING (card_number, day, category)" +
+            ") " +
+            "INSERT INTO card_daily_rollup (card_number, day, category, amount, transaction_count) " +
+            "SELECT card_number, day, category, amount, transaction_count FROM diff " +
+            "WHERE amount <> 0 OR transaction_count <> 0 " +
+            "ON CONFLICT (card_number, day, category) DO UPDATE " +
+            "SET amount = card_daily_rollup.amount + EXCLUDED.amount, " +
+            "transaction_count = card_daily_rollup.transaction_count + EXCLUDED.transaction_count",
+    nativeQuery = true)
+    int rebuildChunk(@Param("chunks") int chunks, @Param("chunk") int chunk);
+
+    @Query(value = "WITH recomputed AS (" +
+            "SELECT t.card_number, CAST(t.confirmed_at AT TIME ZONE 'UTC' AS DATE) AS day, o.category, " +
+            "SUM(t.amount) AS amount, COUNT(*) AS transaction_count " +
+            "FROM transaction_ t " +
+            "JOIN payment_offer o ON o.id = t.offer_id " +
+            "WHERE t.status = 'CONFIRMED' " +
+            "AND (hashtext(t.card_number) & 2147483647) % :chunks = :chunk " +
+            "GROUP BY 1, 2, 3" +
+            "), existing AS (" +
+            "SELECT card_number, day, category, amount, transaction_count " +
+            "FROM card_daily_rollup " +
+            "WHERE (hashtext(card_number) & 2147483647) % :chunks = :chunk" +
+            ") " +
+            "SELECT COUNT(*) " +
+            "FROM recomputed c FULL OUTER JOIN existing e USING (card_number, day, category) " +
+            "WHERE COALESCE(c.amount, 0) <> COALESCE(e.amount, 0) " +
+            "OR COALESCE(c.transaction_count, 0) <> COALESCE(e.transaction_count, 0)",
+    nativeQuery = true)
+    long countChunkMismatches(@Param("chunks") int chunks, @Param("chunk") int chunk);
+}
@@ -0,0 +1,34 @@
+package com.wallet.transactionservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+public class CardLastUsedRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // GREATEST keeps the row monotonic when confirmations commit out of order
+    public void touch(UUID userId, String cardNumber, Instant usedAt) {
+        jdbcTemplate.update(
+                "INSERT INTO card_last_used (user_id, card_number, last_used_at) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (user_id, card_number) DO UPDATE " +
+                        "SET last_used_at = GREATEST(card_last_used.last_used_at, EXCLUDED.last_used_at)",
+                userId, cardNumber, Timestamp.from(usedAt));
+    }
+
+    public List<String> findCardNumbers(UUID userId, int offset, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT card_number FROM card_last_used " +
+                        "WHERE user_id = ? " +
+                        "ORDER BY last_used_at DESC, card_number " +
+                        "LIMIT ? OFFSET ?",
+                String.class, userId, limit, offset);
+    }
+}
@@ -0,0 +1,62 @@
+package com.wallet.transactionservice.repository;
+
+import com.wallet.transactionservice.entity.CardMonthlyStatement;
+import com.wallet.transactionservice.entity.CardMonthlyStatementId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CardMonthlyStatementRepository extends JpaRepository<CardMonthlyStatement, CardMonthlyStatementId> {
+
+    @Query(value = "SELECT document FROM card_monthly_statement " +
+            "WHERE card_number = :cardNumber AND month = :month AND NOT stale AND page_size = :pageSize",
+    nativeQuery = true)
+    Optional<String> findDocument(@Param("cardNumber") String cardNumber,
+                                  @Param("month") LocalDate month,
+                                  @Param("pageSize") int pageSize);
+
+    // Queues every card with a transaction confirmed in the month; cards that already have a statement are kept
+    @Modifying
+    @Query(value = "INSERT INTO card_monthly_statement (card_number, month, stale) " +
+            "SELECT DISTINCT t.card_number, CAST(:month AS DATE), TRUE " +
+            "FROM transaction_ t " +
+            "WHERE t.confirmed_at BETWEEN :start AND :end " +
+            "AND t.created_at BETWEEN :createdFrom AND :end " +
+            "ON CONFLICT (card_number, month) DO NOTHING",
+    nativeQuery = true)
+    int enqueueMonth(@Param("month") LocalDate month,
+                     @Param("start") Instant start,
+                     @Param("end") Instant end,
+                     @Param("createdFrom") Instant createdFrom);
+
+    // The row lock is held while the statement is computed: a concurrent invalidation waits for it and marks the
+    // fresh statement stale again, so a change can't slip in between the computation and the commit
+    @Query(value = "SELECT * FROM card_monthly_statement " +
+            "WHERE stale " +
+            "ORDER BY month " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED",
+    nativeQuery = true)
+    List<CardMonthlyStatement> lockStale(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE card_monthly_statement SET stale = TRUE " +
+            "WHERE card_number = :cardNumber AND month = :month AND NOT stale",
+    nativeQuery = true)
+    int markStale(@Param("cardNumber") String cardNumber, @Param("month") LocalDate month);
+
+    // A full scan, meant for startup only: the page size can only change with a restart
+    @Modifying
+    @Query(value = "UPDATE card_monthly_statement SET stale = TRUE " +
+            "WHERE NOT stale AND page_size IS DISTINCT FROM :pageSize",
+    nativeQuery = true)
+    int markStaleUnlessPageSize(@Param("pageSize") int pageSize);
+}
@@ -0,0 +1,13 @@
+package com.wallet.transactionservice.repository;
+
+import com.wallet.transactionservice.entity.FeeTier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FeeTierRepository extends JpaRepository<FeeTier, Long> {
+
+    @Query(value = "SELECT version FROM fee_schedule_version", nativeQuery = true)
+    long findScheduleVersion();
+}
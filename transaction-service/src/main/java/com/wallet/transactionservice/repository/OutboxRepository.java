@@ -2,11 +2,49 @@ package com.wallet.transactionservice.repository;
 
 import com.wallet.transactionservice.entity.OutboxEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
-    List<OutboxEvent> findAllByOrderByCreatedAt();
+
+    // Claims the oldest rows of one shard. A shard is a hash of the record key (see TransactionKafkaProducer.keyOf),
+    // so all events of a key fall into one shard; rows without a key are spread by their id.
+    @Query(value = "SELECT * FROM outbox " +
+            "WHERE (hashtext(COALESCE(CASE WHEN :key = 'USER_ID' THEN CAST(user_id AS TEXT) ELSE card_number END, " +
+            "CAST(id AS TEXT))) & 2147483647) % :shards = :shard " +
+            "ORDER BY created_at, id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED",
+    nativeQuery = true)
+    List<OutboxEvent> claimShardBatch(@Param("key") String key,
+                                      @Param("shards") int shards,
+                                      @Param("shard") int shard,
+                                      @Param("limit") int limit);
+
+    // One relay per shard at a time, so events of one key are published in outbox order even with several instances.
+    // Relays of different shards run concurrently; a busy shard is skipped, as its holder drains it.
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('outbox_relay'), :shard)", nativeQuery = true)
+    boolean tryLockShard(@Param("shard") int shard);
+
+    @Modifying
+    @Query(value = "INSERT INTO outbox (event_type, payload, card_number, user_id, created_at) " +
+            "SELECT :eventType, e.payload, e.card_number, e.user_id, NOW() " +
+            "FROM unnest(CAST(:payloads AS TEXT[]), CAST(:cardNumbers AS TEXT[]), CAST(:userIds AS UUID[])) " +
+            "AS e(payload, card_number, user_id)",
+    nativeQuery = true)
+    int insertAll(@Param("eventType") String eventType,
+                  @Param("payloads") String[] payloads,
+                  @Param("cardNumbers") String[] cardNumbers,
+                  @Param("userIds") UUID[] userIds);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,44 @@
+package com.wallet.transactionservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Partition DDL for transaction_ goes through plain JDBC
+@Repository
+@RequiredArgsConstructor
+public class TransactionPartitionRepository {
+    private static final String ARCHIVE_SCHEMA = "transaction_archive";
+    private static final String DETACH_LOCK_TIMEOUT = "5s";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int ensurePartitions(LocalDate firstMonth, LocalDate lastMonth) {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT transaction_ensure_partitions(?, ?)", Integer.class, firstMonth, lastMonth);
+        return created == null ? 0 : created;
+    }
+
+    public List<String> findMonthlyPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'transaction_'::regclass " +
+                        "AND c.relname ~ '^transaction_[0-9]{4}_[0-9]{2}$' " +
+                        "ORDER BY c.relname",
+                String.class);
+    }
+
+    // With transaction_default in place DETACH can't run CONCURRENTLY and briefly locks transaction_ exclusively.
+    // The lock timeout keeps it from queueing all queries behind a long one; a timed out run is retried next time.
+    @Transactional
+    public void detachAndArchive(String partition) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + DETACH_LOCK_TIMEOUT + "'");
+        jdbcTemplate.execute("ALTER TABLE transaction_ DETACH PARTITION " + partition);
+        jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+    }
+}
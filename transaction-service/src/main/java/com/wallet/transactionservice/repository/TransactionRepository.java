@@ -1,22 +1,31 @@
 package com.wallet.transactionservice.repository;
 
+import com.wallet.transactionservice.dto.DailyCategoryTotal;
+import com.wallet.transactionservice.dto.PeriodVersion;
+import com.wallet.transactionservice.dto.RecentTransactionView;
+import com.wallet.transactionservice.dto.TransactionExportRow;
+import com.wallet.transactionservice.dto.TransactionRow;
 import com.wallet.transactionservice.entity.Transaction;
 import com.wallet.transactionservice.enums.TransactionStatus;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
@@ -26,6 +35,19 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
             "WHERE t.id = :id")
     Optional<Transaction> findByIdWithOffer(@Param("id") UUID id);
 
+    // The lookups below are bounded on created_at so that they only probe the recent monthly partitions;
+    // findById and findByIdWithOffer, used where only the id is known, probe every partition
+    @Query("SELECT t FROM Transaction t " +
+            "WHERE t.id = :id " +
+            "AND t.createdAt >= :createdFrom")
+    Optional<Transaction> findRecentById(@Param("id") UUID id, @Param("createdFrom") Instant createdFrom);
+
+    @Query("SELECT t FROM Transaction t " +
+            "JOIN FETCH t.offer " +
+            "WHERE t.id IN :ids " +
+            "AND t.createdAt >= :createdFrom")
+    List<Transaction> findAllRecentByIdWithOffer(@Param("ids") Collection<UUID> ids, @Param("createdFrom") Instant createdFrom);
+
     @Query("SELECT t FROM Transaction t " +
             "JOIN t.offer o " +
             "WHERE t.userId = :userId " +
@@ -33,21 +55,212 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
             "AND t.status = 'PENDING'")
     Optional<Transaction> findPendingTransaction(@Param("userId") UUID userId, @Param("offerId") String offerId);
 
+    // Expires at most :limit stale rows; rows locked by a payment that is finishing right now are left for the next run
     @Modifying
-    @Query(value = "UPDATE transaction_ " +
-            "SET status = 'CANCELLED' " +
+    @Query(value = "WITH expired AS (" +
+            "SELECT id FROM transaction_ " +
             "WHERE status = 'PENDING' " +
             "AND created_at < NOW() - INTERVAL '300 seconds' " +
-            "RETURNING *",
+            "ORDER BY created_at " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED" +
+            ") " +
+            "UPDATE transaction_ t " +
+            "SET status = 'CANCELLED', cancelled_at = NOW() " +
+            "FROM expired e " +
+            "WHERE t.id = e.id " +
+            "RETURNING t.*",
+    nativeQuery = true)
+    List<Transaction> expirePendingTransactions(@Param("limit") int limit);
+
+    // One row per (UTC day, category, amount sign) with its sum and transaction count
+    @Query(value = "SELECT CAST(CAST(t.confirmed_at AT TIME ZONE 'UTC' AS DATE) - DATE '1970-01-01' AS BIGINT) AS \"epochDay\", " +
+            "o.category AS \"category\", " +
+            "SUM(t.amount) AS \"amount\", " +
+            "CAST(COUNT(*) AS INTEGER) AS \"transactionCount\" " +
+            "FROM transaction_ t " +
+            "JOIN payment_offer o ON o.id = t.offer_id " +
+            "WHERE t.card_number = :cardNumber " +
+            "AND t.status = 'CONFIRMED' " +
+            "AND t.confirmed_at BETWEEN :start AND :end " +
+            "AND t.created_at BETWEEN :createdFrom AND :end " +
+            "GROUP BY 1, 2, SIGN(t.amount)",
+    nativeQuery = true)
+    List<DailyCategoryTotal> sumByDayAndCategory(@Param("cardNumber") String cardNumber,
+                                                 @Param("start") Instant start,
+                                                 @Param("end") Instant end,
+                                                 @Param("createdFrom") Instant createdFrom);
+
+    // Index-only on idx_tx_card_ts_id_cover; lastConfirmedAt is in epoch microseconds, 0 for an empty period
+    @Query(value = "SELECT COUNT(*) AS \"transactionCount\", " +
+            "COUNT(*) FILTER (WHERE t.status = 'CONFIRMED') AS \"confirmedCount\", " +
+            "CAST(COALESCE(EXTRACT(EPOCH FROM MAX(t.confirmed_at)) * 1000000, 0) AS BIGINT) AS \"lastConfirmedAt\" " +
+            "FROM transaction_ t " +
+            "WHERE t.card_number = :cardNumber " +
+            "AND t.confirmed_at BETWEEN :start AND :end " +
+            "AND t.created_at BETWEEN :createdFrom AND :end",
+    nativeQuery = true)
+    PeriodVersion findPeriodVersion(@Param("cardNumber") String cardNumber,
+                                    @Param("start") Instant start,
+                                    @Param("end") Instant end,
+                                    @Param("createdFrom") Instant createdFrom);
+
+    // The period pages list the same CONFIRMED transactions that sumByDayAndCategory totals
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "AND t.status = 'CONFIRMED' " +
+            "ORDER BY t.confirmedAt DESC, t.id DESC " +
+            "LIMIT :limit")
+    List<TransactionRow> findFirstPageByCardInPeriod(@Param("cardNumber") String cardNumber,
+                                                     @Param("start") Instant start,
+                                                     @Param("end") Instant end,
+                                                     @Param("createdFrom") Instant createdFrom,
+                                                     @Param("limit") int limit);
+
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "AND t.status = 'CONFIRMED' " +
+            "AND (t.confirmedAt, t.id) < (:cursorConfirmedAt, :cursorId) " +
+            "ORDER BY t.confirmedAt DESC, t.id DESC " +
+            "LIMIT :limit")
+    List<TransactionRow> findPageByCardInPeriodAfter(@Param("cardNumber") String cardNumber,
+                                                     @Param("start") Instant start,
+                                                     @Param("end") Instant end,
+                                                     @Param("createdFrom") Instant createdFrom,
+                                                     @Param("cursorConfirmedAt") Instant cursorConfirmedAt,
+                                                     @Param("cursorId") UUID cursorId,
+                                                     @Param("limit") int limit);
+
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "AND t.status = 'CONFIRMED' " +
+            "AND t.amount < 0 " +
+            "ORDER BY t.confirmedAt DESC, t.id DESC " +
+            "LIMIT :limit")
+    List<TransactionRow> findFirstExpensePageByCardInPeriod(@Param("cardNumber") String cardNumber,
+                                                            @Param("start") Instant start,
+                                                            @Param("end") Instant end,
+                                                            @Param("createdFrom") Instant createdFrom,
+                                                            @Param("limit") int limit);
+
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "AND t.status = 'CONFIRMED' " +
+            "AND (t.confirmedAt, t.id) < (:cursorConfirmedAt, :cursorId) " +
+            "AND t.amount < 0 " +
+            "ORDER BY t.confirmedAt DESC, t.id DESC " +
+            "LIMIT :limit")
+    List<TransactionRow> findExpensePageByCardInPeriodAfter(@Param("cardNumber") String cardNumber,
+                                                            @Param("start") Instant start,
+                                                            @Param("end") Instant end,
+                                                            @Param("createdFrom") Instant createdFrom,
+                                                            @Param("cursorConfirmedAt") Instant cursorConfirmedAt,
+                                                            @Param("cursorId") UUID cursorId,
+                                                            @Param("limit") int limit);
+
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "AND t.status = 'CONFIRMED' " +
+            "AND t.amount > 0 " +
+            "ORDER BY t.confirmedAt DESC, t.id DESC " +
+            "LIMIT :limit")
+    List<TransactionRow> findFirstIncomePageByCardInPeriod(@Param("cardNumber") String cardNumber,
+                                                           @Param("start") Instant start,
+                                                           @Param("end") Instant end,
+                                                           @Param("createdFrom") Instant createdFrom,
+                                                           @Param("limit") int limit);
+
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "AND t.status = 'CONFIRMED' " +
+            "AND (t.confirmedAt, t.id) < (:cursorConfirmedAt, :cursorId) " +
+            "AND t.amount > 0 " +
+            "ORDER BY t.confirmedAt DESC, t.id DESC " +
+            "LIMIT :limit")
+    List<TransactionRow> findIncomePageByCardInPeriodAfter(@Param("cardNumber") String cardNumber,
+                                                           @Param("start") Instant start,
+                                                           @Param("end") Instant end,
+                                                           @Param("createdFrom") Instant createdFrom,
+                                                           @Param("cursorConfirmedAt") Instant cursorConfirmedAt,
+                                                           @Param("cursorId") UUID cursorId,
+                                                           @Param("limit") int limit);
+
+    // Forward-only cursor for exports: rows arrive in fetch-size batches and, being DTOs, never enter the persistence context
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionExportRow(t.id, t.confirmedAt, o.vendor, o.category, t.amount, t.fee, t.status) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "AND t.confirmedAt BETWEEN :start AND :end " +
+            "AND t.createdAt BETWEEN :createdFrom AND :end " +
+            "ORDER BY t.confirmedAt, t.id")
+    Stream<TransactionExportRow> streamByCardInPeriod(@Param("cardNumber") String cardNumber,
+                                                      @Param("start") Instant start,
+                                                      @Param("end") Instant end,
+                                                      @Param("createdFrom") Instant createdFrom);
+
+    @Query("SELECT new com.wallet.transactionservice.dto.TransactionRow(t.id, o.vendor, o.category, t.amount, t.cardNumber, t.confirmedAt) " +
+            "FROM Transaction t JOIN t.offer o " +
+            "WHERE t.cardNumber = :cardNumber " +
+            "ORDER BY t.confirmedAt DESC")
+    List<TransactionRow> findRecentByCardNumber(@Param("cardNumber") String cardNumber, Limit limit);
+
+    // Top :count rows per card, each taken from idx_tx_card_ts_id_cover by its own LATERAL index scan
+    @Query(value = "SELECT t.id AS \"id\", o.vendor AS \"vendor\", o.category AS \"category\", " +
+            "t.amount AS \"amount\", t.card_number AS \"cardNumber\", t.confirmed_at AS \"confirmedAt\" " +
+            "FROM unnest(CAST(:cardNumbers AS VARCHAR[])) AS c(card_number) " +
+            "CROSS JOIN LATERAL (" +
+            "SELECT r.id, r.offer_id, r.amount, r.card_number, r.confirmed_at " +
+            "FROM transaction_ r " +
+            "WHERE r.card_number = c.card_number " +
+            "ORDER BY r.confirmed_at DESC, r.id DESC " +
+            "LIMIT :count" +
+            ") t " +
+            "JOIN payment_offer o ON o.id = t.offer_id " +
+            "ORDER BY t.card_number, t.confirmed_at DESC, t.id DESC",
     nativeQuery = true)
-    List<Transaction> cleanUpPendingTransactions();
+    List<RecentTransactionView> findRecentByCardNumbers(@Param("cardNumbers") String[] cardNumbers,
+                                                        @Param("count") int count);
+
+    Optional<Transaction> findByUserIdAndOfferIdAndStatusAndCreatedAtGreaterThanEqual(UUID userId,
+                                                                                      String offerId,
+                                                                                      TransactionStatus status,
+                                                                                      Instant createdFrom);
 
-    Optional<Transaction> findByUserIdAndOfferIdAndStatus(UUID userId, String offerId, TransactionStatus status);
-    List<Transaction> findAllByCardNumberAndConfirmedAtBetween(String cardNumber, Instant confirmedAtAfter, Instant confirmedAtBefore);
-    List<Transaction> findAllByCardNumberAndConfirmedAtBetween(String cardNumber, Instant confirmedAtAfter, Instant confirmedAtBefore, Pageable pageable);
-    List<Transaction> findAllByCardNumberAndConfirmedAtBetweenAndAmountLessThan(String cardNumber, Instant confirmedAtAfter, Instant confirmedAtBefore, BigDecimal amountIsLessThan, Pageable pageable);
-    List<Transaction> findAllByCardNumberAndConfirmedAtBetweenAndAmountGreaterThan(String cardNumber, Instant confirmedAtAfter, Instant confirmedAtBefore, BigDecimal amountIsGreaterThan, Pageable pageable);
     Optional<Transaction> findFirstByCardNumberOrderByCreatedAtAsc(String cardNumber);
-    List<Transaction> findByCardNumberOrderByConfirmedAtDesc(String cardNumber, Limit limit);
-    List<Transaction> findAllByUserIdOrderByConfirmedAtDesc(UUID userId, Pageable pageable);
+
+    // Latest confirmation per card, then cards ordered by it; reads the user's rows through idx_tx_user_confirmed
+    @Query(value = "SELECT card_number FROM (" +
+            "SELECT DISTINCT ON (t.card_number) t.card_number, t.confirmed_at " +
+            "FROM transaction_ t " +
+            "WHERE t.user_id = :userId " +
+            "AND t.status = 'CONFIRMED' " +
+            "ORDER BY t.card_number, t.confirmed_at DESC" +
+            ") last_used " +
+            "ORDER BY confirmed_at DESC, card_number " +
+            "LIMIT :limit OFFSET :offset",
+    nativeQuery = true)
+    List<String> findLastUsedCardNumbers(@Param("userId") UUID userId,
+                                         @Param("offset") int offset,
+                                         @Param("limit") int limit);
 }
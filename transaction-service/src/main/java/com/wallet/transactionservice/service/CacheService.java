@@ -1,20 +1,23 @@
 package com.wallet.transactionservice.service;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.wallet.transactionservice.dto.PaymentOffer;
 import com.wallet.transactionservice.entity.PaymentOfferEntity;
 import com.wallet.transactionservice.exception.PaymentOfferNotFoundException;
-import com.wallet.transactionservice.util.InstantDeserializer;
-import com.wallet.transactionservice.util.InstantSerializer;
+import com.wallet.transactionservice.util.PaymentOfferJson;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -23,47 +26,125 @@ public class CacheService {
     private final RedisTemplate<String, String> redisTemplate;
     private static final String PAYMENT_OFFER_KEY = "offer:";
     private static final long PAYMENT_OFFER_TTL_MS = 300_000;
+    private static final String CLAIMED_OFFER_KEY = "offer-claimed:";
+    private static final long CLAIMED_OFFER_TTL_MS = 60_000;
 
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeAdapter(Instant.class, new InstantDeserializer())
-            .registerTypeAdapter(Instant.class, new InstantSerializer())
-            .create();
+    private static final RedisScript<String> CLAIM_OFFER_SCRIPT = RedisScript.of("""
+            local offer = redis.call('GET', KEYS[1])
+            if offer then
+                redis.call('DEL', KEYS[1])
+                redis.call('SET', KEYS[2], offer, 'PX', ARGV[1])
+            end
+            return offer
+            """, String.class);
 
-    public PaymentOffer getPaymentOfferById(String offerId) {
+    // KEYS holds the offer keys followed by their claim keys; a missing offer comes back as nil
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_OFFERS_SCRIPT = RedisScript.of("""
+            local n = #KEYS / 2
+            local offers = {}
+            for i = 1, n do
+                local offer = redis.call('GET', KEYS[i])
+                if offer then
+                    redis.call('DEL', KEYS[i])
+                    redis.call('SET', KEYS[n + i], offer, 'PX', ARGV[1])
+                end
+                offers[i] = offer
+            end
+            return offers
+            """, List.class);
+
+    private static final RedisScript<Void> RETURN_OFFER_SCRIPT = RedisScript.of("""
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            redis.call('DEL', KEYS[2])
+            """);
+
+    // Moves the offer to the claim key in one atomic step, so two concurrent payments can never both get it
+    public PaymentOffer claimOffer(String offerId) {
         try {
-            String key = PAYMENT_OFFER_KEY + offerId;
-            String json = redisTemplate.opsForValue().get(key);
+            String json = redisTemplate.execute(
+                    CLAIM_OFFER_SCRIPT,
+                    List.of(PAYMENT_OFFER_KEY + offerId, CLAIMED_OFFER_KEY + offerId),
+                    String.valueOf(CLAIMED_OFFER_TTL_MS)
+            );
 
             if (json == null) {
                 log.warn("No offer found in Redis for id: {}", offerId);
                 throw new PaymentOfferNotFoundException("No offer found for id: " + offerId);
             }
 
-            log.debug("Successfully retrieved offer {} from Redis", offerId);
-            return GSON.fromJson(json, PaymentOffer.class);
+            log.debug("Successfully claimed offer {} from Redis", offerId);
+            return PaymentOfferJson.fromJson(json);
 
         } catch (PaymentOfferNotFoundException e) {
             throw e;
         } catch (Exception e) {
-            log.error("Redis error while getting offer with id {}", offerId, e);
+            log.error("Redis error while claiming offer with id {}", offerId, e);
             throw new RuntimeException("Redis error", e);
         }
     }
 
-    public void removeOffer(String offerId) {
+    // Bulk claimOffer in a single round trip. Returns the claimed offers by id; ids without an offer are absent.
+    public Map<String, PaymentOffer> claimOffers(List<String> offerIds) {
+        List<String> keys = new ArrayList<>(offerIds.size() * 2);
+        for (String offerId : offerIds) {
+            keys.add(PAYMENT_OFFER_KEY + offerId);
+        }
+        for (String offerId : offerIds) {
+            keys.add(CLAIMED_OFFER_KEY + offerId);
+        }
+
+        List<?> jsons;
         try {
-            String key = PAYMENT_OFFER_KEY + offerId;
-            redisTemplate.delete(key);
+            jsons = redisTemplate.execute(CLAIM_OFFERS_SCRIPT, keys, String.valueOf(CLAIMED_OFFER_TTL_MS));
         } catch (Exception e) {
+            log.error("Redis error while claiming {} offers", offerIds.size(), e);
             throw new RuntimeException("Redis error", e);
         }
+
+        Map<String, PaymentOffer> offers = new HashMap<>();
+        for (int i = 0; i < offerIds.size(); i++) {
+            Object json = jsons == null || i >= jsons.size() ? null : jsons.get(i);
+            if (json != null) {
+                offers.put(offerIds.get(i), PaymentOfferJson.fromJson((String) json));
+            }
+        }
+        return offers;
     }
 
+    // Makes the offer available again and releases its claim, if it still holds one
     public void returnOffer(PaymentOffer offer) {
         try {
-            String key = PAYMENT_OFFER_KEY + offer.id();
-            String json = GSON.toJson(offer);
-            redisTemplate.opsForValue().set(key, json, PAYMENT_OFFER_TTL_MS, TimeUnit.MILLISECONDS);
+            redisTemplate.execute(
+                    RETURN_OFFER_SCRIPT,
+                    List.of(PAYMENT_OFFER_KEY + offer.id(), CLAIMED_OFFER_KEY + offer.id()),
+                    PaymentOfferJson.toJson(offer),
+                    String.valueOf(PAYMENT_OFFER_TTL_MS)
+            );
+        } catch (Exception e) {
+            throw new RuntimeException("Redis error", e);
+        }
+    }
+
+    // One pipelined round trip for the whole list instead of a SET per offer
+    public void returnOffers(List<PaymentOffer> offers) {
+        if (offers.isEmpty()) {
+            return;
+        }
+        try {
+            RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (PaymentOffer offer : offers) {
+                    connection.stringCommands().set(
+                            serializer.serialize(PAYMENT_OFFER_KEY + offer.id()),
+                            serializer.serialize(PaymentOfferJson.toJson(offer)),
+                            Expiration.milliseconds(PAYMENT_OFFER_TTL_MS),
+                            RedisStringCommands.SetOption.upsert()
+                    );
+                    connection.keyCommands().del(serializer.serialize(CLAIMED_OFFER_KEY + offer.id()));
+                }
+                return null;
+            });
         } catch (Exception e) {
             throw new RuntimeException("Redis error", e);
         }
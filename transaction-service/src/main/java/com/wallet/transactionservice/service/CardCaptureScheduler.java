@@ -0,0 +1,40 @@
+package com.wallet.transactionservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardCaptureScheduler {
+    private final CardCaptureService cardCaptureService;
+    private final TransactionService transactionService;
+
+    @Value("${transaction.capture.retry.chunk-size}")
+    private int chunkSize;
+
+    // Stops at the first chunk that didn't capture completely: failed rows stay due and would be claimed again at once.
+    // A rejected capture leaves its row queued, so a transaction that can't be reversed now is retried on the next run.
+    @Scheduled(fixedDelayString = "${transaction.capture.retry.delay-ms}")
+    public void retryCaptures() {
+        CardCaptureService.CaptureRetry retry;
+        do {
+            retry = cardCaptureService.retryDue();
+            for (UUID transactionId : retry.rejected()) {
+                try {
+                    transactionService.failUncapturedTransaction(transactionId);
+                } catch (Exception e) {
+                    log.error("Failed to reverse transaction {} whose capture was rejected", transactionId, e);
+                }
+            }
+            if (!retry.rejected().isEmpty()) {
+                log.warn("{} confirmed transactions reversed because their holds could not be captured", retry.rejected().size());
+            }
+        } while (retry.claimed() == chunkSize && retry.captured() == retry.claimed());
+    }
+}
@@ -0,0 +1,156 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.entity.CardCapture;
+import com.wallet.transactionservice.feign.CardFeignClient;
+import com.wallet.transactionservice.repository.CardCaptureRepository;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Captures holds of confirmed transactions only after the confirmation has committed, so a debit can never be
+ * followed by a rollback of the confirmation. The capture is queued in card_capture with the confirmation, sent
+ * right after the commit and retried by {@link CardCaptureScheduler} until card-service acknowledges it; capture
+ * is idempotent per hold, so sending it twice is harmless. A hold that expires while its capture is still queued
+ * can't be captured any more; its transaction is then reversed, see
+ * {@link TransactionService#failUncapturedTransaction(UUID)}.
+ */
+@Slf4j
+@Service
+public class CardCaptureService {
+    private final CardCaptureRepository cardCaptureRepository;
+    private final CardFeignClient cardFeignClient;
+    private final PaymentMetrics paymentMetrics;
+    // afterCommit still sees the committed transaction's resources, so its work needs a transaction of its own
+    private final TransactionTemplate newTransaction;
+
+    @Value("${transaction.capture.retry.chunk-size}")
+    private int chunkSize;
+
+    @Value("${transaction.capture.retry.min-age}")
+    private Duration minAge;
+
+    public CardCaptureService(CardCaptureRepository cardCaptureRepository,
+                              CardFeignClient cardFeignClient,
+                              PaymentMetrics paymentMetrics,
+                              PlatformTransactionManager transactionManager) {
+        this.cardCaptureRepository = cardCaptureRepository;
+        this.cardFeignClient = cardFeignClient;
+        this.paymentMetrics = paymentMetrics;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Joins the confirming transaction; nothing is sent to card-service unless it commits
+    @Transactional
+    public void enqueue(String cardNumber, List<UUID> transactionIds) {
+        cardCaptureRepository.insertAll(cardNumber, transactionIds.toArray(UUID[]::new));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                captureNow(cardNumber, transactionIds);
+            }
+        });
+    }
+
+    @Transactional
+    public void discard(UUID transactionId) {
+        cardCaptureRepository.deleteAllByIdIn(List.of(transactionId));
+    }
+
+    // The payment is already confirmed at this point, so a failure here is only logged and left to the retry
+    private void captureNow(String cardNumber, List<UUID> transactionIds) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                List<UUID> locked = cardCaptureRepository.lockAll(transactionIds).stream()
+                        .map(CardCapture::getTransactionId)
+                        .toList();
+                if (locked.isEmpty()) {
+                    return;
+                }
+                paymentMetrics.stage("capture", () -> cardFeignClient.capturePayments(cardNumber, locked));
+                cardCaptureRepository.deleteAllByIdIn(locked);
+            });
+        } catch (Exception e) {
+            log.warn("Capture of {} holds failed, it will be retried: {}", transactionIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Retries one chunk of captures that are older than min-age. A capture card-service refuses (the hold was
+     * released or has expired) is retried per hold to isolate it, and its transaction is returned as rejected;
+     * its row stays queued until the transaction has been failed.
+     */
+    public CaptureRetry retryDue() {
+        return newTransaction.execute(status -> {
+            List<CardCapture> captures = cardCaptureRepository.claimDue(Instant.now().minus(minAge), chunkSize);
+            Map<String, List<UUID>> byCard = new LinkedHashMap<>();
+            for (CardCapture capture : captures) {
+                byCard.computeIfAbsent(capture.getCardNumber(), cardNumber -> new ArrayList<>()).add(capture.getTransactionId());
+            }
+
+            List<UUID> captured = new ArrayList<>();
+            List<UUID> failed = new ArrayList<>();
+            List<UUID> rejected = new ArrayList<>();
+            byCard.forEach((cardNumber, transactionIds) -> {
+                switch (capture(cardNumber, transactionIds)) {
+                    case CAPTURED -> captured.addAll(transactionIds);
+                    case FAILED -> failed.addAll(transactionIds);
+                    case REJECTED -> {
+                        for (UUID transactionId : transactionIds) {
+                            switch (transactionIds.size() == 1 ? CaptureResult.REJECTED : capture(cardNumber, List.of(transactionId))) {
+                                case CAPTURED -> captured.add(transactionId);
+                                case FAILED -> failed.add(transactionId);
+                                case REJECTED -> rejected.add(transactionId);
+                            }
+                        }
+                    }
+                }
+            });
+
+            if (!captured.isEmpty()) {
+                cardCaptureRepository.deleteAllByIdIn(captured);
+            }
+            if (!failed.isEmpty()) {
+                cardCaptureRepository.incrementAttempts(failed);
+                log.warn("{} card captures failed and will be retried", failed.size());
+            }
+            return new CaptureRetry(captures.size(), captured.size(), rejected);
+        });
+    }
+
+    private CaptureResult capture(String cardNumber, List<UUID> transactionIds) {
+        try {
+            cardFeignClient.capturePayments(cardNumber, transactionIds);
+            return CaptureResult.CAPTURED;
+        } catch (FeignException.Conflict e) {
+            return CaptureResult.REJECTED;
+        } catch (Exception e) {
+            return CaptureResult.FAILED;
+        }
+    }
+
+    private enum CaptureResult {
+        CAPTURED,
+        FAILED,
+        REJECTED
+    }
+
+    public record CaptureRetry(int claimed, int captured, List<UUID> rejected) {
+    }
+}
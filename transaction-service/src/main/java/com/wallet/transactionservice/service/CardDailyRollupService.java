@@ -0,0 +1,104 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.dto.DailyCategoryTotal;
+import com.wallet.transactionservice.dto.RollupRebuildReport;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.repository.CardDailyRollupRepository;
+import com.wallet.transactionservice.util.DateConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntToLongFunction;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardDailyRollupService {
+    private final CardDailyRollupRepository cardDailyRollupRepository;
+    private final DateConverter dateConverter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.rollup.rebuild.chunks}")
+    private int rebuildChunks;
+
+    @Value("${transaction.rollup.rebuild.parallelism}")
+    private int rebuildParallelism;
+
+    // Joins the caller's transaction, so the rollup commits or rolls back together with the status change
+    @Transactional
+    public void recordConfirmed(Transaction transaction) {
+        cardDailyRollupRepository.addDelta(
+                transaction.getCardNumber(),
+                dateConverter.toLocalDate(transaction.getConfirmedAt()),
+                transaction.getOffer().getCategory().name(),
+                transaction.getAmount(),
+                1
+        );
+    }
+
+    @Transactional
+    public void revertConfirmed(Transaction transaction) {
+        cardDailyRollupRepository.addDelta(
+                transaction.getCardNumber(),
+                dateConverter.toLocalDate(transaction.getConfirmedAt()),
+                transaction.getOffer().getCategory().name(),
+                transaction.getAmount().negate(),
+                -1
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyCategoryTotal> findDailyCategoryTotals(String cardNumber, LocalDate from, LocalDate to) {
+        return cardDailyRollupRepository.findDailyCategoryTotals(cardNumber, from, to);
+    }
+
+    public RollupRebuildReport rebuild() {
+        RollupRebuildReport report = runChunks(chunk -> transactionTemplate.execute(
+                status -> (long) cardDailyRollupRepository.rebuildChunk(rebuildChunks, chunk)));
+        log.info("Card daily rollup rebuilt: {} rows corrected in {} ms", report.rows(), report.elapsedMs());
+        return report;
+    }
+
+    public RollupRebuildReport verify() {
+        RollupRebuildReport report = runChunks(chunk -> transactionTemplate.execute(
+                status -> cardDailyRollupRepository.countChunkMismatches(rebuildChunks, chunk)));
+        log.info("Card daily rollup verified: {} mismatching rows in {} ms", report.rows(), report.elapsedMs());
+        return report;
+    }
+
+    private RollupRebuildReport runChunks(IntToLongFunction chunkTask) {
+        long started = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism);
+        try {
+            List<Future<Long>> results = new ArrayList<>(rebuildChunks);
+            for (int chunk = 0; chunk < rebuildChunks; chunk++) {
+                int current = chunk;
+                results.add(executor.submit(() -> chunkTask.applyAsLong(current)));
+            }
+
+            long rows = 0;
+            for (Future<Long> result : results) {
+                rows += result.get();
+            }
+            return new RollupRebuildReport(rebuildChunks, rows, System.currentTimeMillis() - started);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Card daily rollup rebuild was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Card daily rollup rebuild failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.entity.FeeTier;
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.TransactionCategory;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable fee tier table compiled from {@code fee_tier}. Every (category, card type) pair is resolved
+ * up front to its most specific tier set: exact match, then category only, then card type only, then the
+ * catch-all. A lookup is an array index plus a binary search over the tier thresholds. Amounts and
+ * fees are {@code long} minor units at the scale of {@code transaction_.amount}, and rates are in
+ * millionths.
+ */
+public final class FeeSchedule {
+    private static final int AMOUNT_SCALE = 4;
+    private static final int RATE_SCALE = 6;
+    private static final long RATE_UNIT = 1_000_000;
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+    private static final CardType[] CARD_TYPES = CardType.values();
+
+    public static final FeeSchedule EMPTY = new FeeSchedule(new Tiers[CATEGORIES.length * CARD_TYPES.length], 0);
+
+    private final Tiers[] tiers;
+    private final long version;
+
+    private FeeSchedule(Tiers[] tiers, long version) {
+        this.tiers = tiers;
+        this.version = version;
+    }
+
+    public static FeeSchedule compile(List<FeeTier> rows, long version) {
+        Map<Scope, List<FeeTier>> byScope = new HashMap<>();
+        for (FeeTier row : rows) {
+            byScope.computeIfAbsent(new Scope(row.getCategory(), row.getCardType()), scope -> new ArrayList<>()).add(row);
+        }
+
+        Map<List<FeeTier>, Tiers> compiled = new IdentityHashMap<>();
+        Tiers[] tiers = new Tiers[CATEGORIES.length * CARD_TYPES.length];
+        for (TransactionCategory category : CATEGORIES) {
+            for (CardType cardType : CARD_TYPES) {
+                List<FeeTier> scoped = firstNonNull(
+                        byScope.get(new Scope(category, cardType)),
+                        byScope.get(new Scope(category, null)),
+                        byScope.get(new Scope(null, cardType)),
+                        byScope.get(new Scope(null, null)));
+                if (scoped != null) {
+                    tiers[index(category, cardType)] = compiled.computeIfAbsent(scoped, Tiers::of);
+                }
+            }
+        }
+        return new FeeSchedule(tiers, version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Returns amount + fee, the same contract as the former single-threshold FeeService
+    public BigDecimal applyFee(BigDecimal amount, TransactionCategory category, CardType cardType) {
+        long fee = fee(category, cardType, amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        return fee == 0 ? amount : amount.add(BigDecimal.valueOf(fee, AMOUNT_SCALE));
+    }
+
+    public long fee(TransactionCategory category, CardType cardType, long amountMinor) {
+        Tiers scoped = tiers[index(category, cardType)];
+        return scoped == null ? 0 : scoped.fee(amountMinor);
+    }
+
+    private static int index(TransactionCategory category, CardType cardType) {
+        return category.ordinal() * CARD_TYPES.length + cardType.ordinal();
+    }
+
+    @SafeVarargs
+    private static <T> T firstNonNull(T... candidates) {
+        for (T candidate : candidates) {
+            if (candidate != null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private record Scope(TransactionCategory category, CardType cardType) {
+    }
+
+    // Parallel arrays sorted by minAmount; maxFee is Long.MAX_VALUE for uncapped tiers
+    private record Tiers(long[] minAmounts, long[] rates, long[] fixedFees, long[] maxFees) {
+
+        static Tiers of(List<FeeTier> rows) {
+            List<FeeTier> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(FeeTier::getMinAmount));
+
+            int size = sorted.size();
+            long[] minAmounts = new long[size];
+            long[] rates = new long[size];
+            long[] fixedFees = new long[size];
+            long[] maxFees = new long[size];
+            for (int i = 0; i < size; i++) {
+                FeeTier row = sorted.get(i);
+                minAmounts[i] = toScaled(row.getMinAmount(), AMOUNT_SCALE);
+                rates[i] = toScaled(row.getRate(), RATE_SCALE);
+                fixedFees[i] = toScaled(Objects.requireNonNullElse(row.getFixedFee(), BigDecimal.ZERO), AMOUNT_SCALE);
+                maxFees[i] = row.getMaxFee() == null ? Long.MAX_VALUE : toScaled(row.getMaxFee(), AMOUNT_SCALE);
+                if (i > 0 && minAmounts[i] == minAmounts[i - 1]) {
+                    throw new IllegalArgumentException("Duplicate fee tier for " + row.getCategory() + "/" + row.getCardType() + " from " + row.getMinAmount());
+                }
+            }
+            return new Tiers(minAmounts, rates, fixedFees, maxFees);
+        }
+
+        long fee(long amount) {
+            int tier = Arrays.binarySearch(minAmounts, amount);
+            if (tier < 0) {
+                // Insertion point minus one: the last tier starting below the amount
+                tier = -tier - 2;
+                if (tier < 0) {
+                    return 0;
+                }
+            }
+            long proportional = (Math.multiplyExact(amount, rates[tier]) + RATE_UNIT / 2) / RATE_UNIT;
+            return Math.min(Math.addExact(fixedFees[tier], proportional), maxFees[tier]);
+        }
+
+        private static long toScaled(BigDecimal value, int scale) {
+            return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        }
+    }
+}
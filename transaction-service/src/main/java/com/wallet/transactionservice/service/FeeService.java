@@ -1,35 +1,59 @@
 package com.wallet.transactionservice.service;
 
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.exception.FeeException;
+import com.wallet.transactionservice.repository.FeeTierRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class FeeService {
-    @Value("${transaction.commission.transfer-threshold}")
-    private BigDecimal LARGE_TRANSFER_THRESHOLD;
+    private final FeeTierRepository feeTierRepository;
 
-    @Value("${transaction.commission.fee.cap}")
-    private BigDecimal MAX_FEE_CAP;
+    // Replaced as a whole on reload, so a lookup always sees one consistent schedule
+    private volatile FeeSchedule schedule = FeeSchedule.EMPTY;
 
-    @Value("${transaction.commission.fee.rate}")
-    private BigDecimal APP_FEE_RATE;
-
-    public BigDecimal applyTransferFee(BigDecimal amount) {
+    public BigDecimal applyTransferFee(BigDecimal amount, TransactionCategory category, CardType cardType) {
         if (amount == null) {
             throw new IllegalArgumentException("Amount can't be null");
         }
 
-        if (amount.compareTo(LARGE_TRANSFER_THRESHOLD) < 0) {
-            return amount;
+        try {
+            return schedule.applyFee(amount, category, cardType);
+        } catch (ArithmeticException e) {
+            throw new FeeException("Amount is out of the fee schedule range");
         }
+    }
+
+    // A schedule that doesn't compile fails startup rather than leaving payments without fees
+    @PostConstruct
+    public void loadSchedule() {
+        reload(feeTierRepository.findScheduleVersion());
+    }
 
-        BigDecimal commission = amount.multiply(APP_FEE_RATE);
-        commission = commission.min(MAX_FEE_CAP);
+    @Scheduled(fixedDelayString = "${transaction.fee-schedule.reload-interval-ms}")
+    public void reloadIfChanged() {
+        try {
+            long version = feeTierRepository.findScheduleVersion();
+            if (version != schedule.getVersion()) {
+                reload(version);
+            }
+        } catch (Exception e) {
+            log.error("Failed to reload the fee schedule, keeping version {}", schedule.getVersion(), e);
+        }
+    }
 
-        return amount.add(commission);
+    // The version is read before the tiers: a change committed in between is picked up again on the next check
+    private synchronized void reload(long version) {
+        schedule = FeeSchedule.compile(feeTierRepository.findAll(), version);
+        log.info("Loaded fee schedule version {}", version);
     }
 }
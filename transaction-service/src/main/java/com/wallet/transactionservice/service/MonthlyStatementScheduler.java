@@ -0,0 +1,33 @@
+package com.wallet.transactionservice.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+@Component
+@RequiredArgsConstructor
+public class MonthlyStatementScheduler {
+    private final MonthlyStatementService monthlyStatementService;
+
+    // Only queues the month; the statements are computed by recomputeStale. On startup this catches up a missed close.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${transaction.statements.close-cron}", zone = "UTC")
+    public void closeMonth() {
+        monthlyStatementService.enqueueMonth(YearMonth.now(ZoneOffset.UTC).minusMonths(1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void invalidateOtherPageSizes() {
+        monthlyStatementService.invalidateOtherPageSizes();
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.statements.recompute.delay-ms}")
+    public void recomputeStale() {
+        monthlyStatementService.recomputeStale();
+    }
+}
@@ -0,0 +1,180 @@
+package com.wallet.transactionservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transactionservice.dto.MonthlyStatementDocument;
+import com.wallet.transactionservice.dto.StatementDayTotal;
+import com.wallet.transactionservice.entity.CardMonthlyStatement;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.repository.CardMonthlyStatementRepository;
+import com.wallet.transactionservice.repository.TransactionRepository;
+import com.wallet.transactionservice.util.DateConverter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Statements of closed months, precomputed into card_monthly_statement so that a whole-month view is a single row
+ * read. A month is queued once it closes; afterwards only status changes of its transactions can alter it, and
+ * those mark the statement stale for recomputation. Anything not materialised yet is served live.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MonthlyStatementService {
+    private final CardMonthlyStatementRepository cardMonthlyStatementRepository;
+    private final TransactionRepository transactionRepository;
+    private final DateConverter dateConverter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.per-page}")
+    private int transactionsPerPage;
+
+    @Value("${transaction.partitioning.max-confirmation-lag}")
+    private Duration maxConfirmationLag;
+
+    @Value("${transaction.statements.recompute.batch-size}")
+    private int batchSize;
+
+    @Value("${transaction.statements.recompute.parallelism}")
+    private int parallelism;
+
+    // Only exact closed months are stored; a document written with another page size is ignored until it is rebuilt
+    @Transactional(readOnly = true)
+    public Optional<MonthlyStatementDocument> findStatement(String cardNumber, LocalDate from, LocalDate to) {
+        YearMonth month = YearMonth.from(from);
+        if (from.getDayOfMonth() != 1 || !to.equals(month.atEndOfMonth()) || !month.isBefore(YearMonth.now(ZoneOffset.UTC))) {
+            return Optional.empty();
+        }
+        return cardMonthlyStatementRepository.findDocument(cardNumber, month.atDay(1), transactionsPerPage)
+                .map(this::fromJson);
+    }
+
+    // Stored first pages hold transaction.per-page rows: after a change of it they are queued for recomputation
+    @Transactional
+    public int invalidateOtherPageSizes() {
+        int invalidated = cardMonthlyStatementRepository.markStaleUnlessPageSize(transactionsPerPage);
+        if (invalidated > 0) {
+            log.info("Queued {} card statements stored with another page size than {}", invalidated, transactionsPerPage);
+        }
+        return invalidated;
+    }
+
+    // Joins the caller's transaction; see CardMonthlyStatementRepository.lockStale for the ordering with a recomputation
+    @Transactional
+    public void invalidate(Transaction transaction) {
+        YearMonth month = YearMonth.from(dateConverter.toLocalDate(transaction.getConfirmedAt()));
+        if (month.isBefore(YearMonth.now(ZoneOffset.UTC))) {
+            cardMonthlyStatementRepository.markStale(transaction.getCardNumber(), month.atDay(1));
+        }
+    }
+
+    @Transactional
+    public int enqueueMonth(YearMonth month) {
+        Instant start = dateConverter.toStartOfDayInstant(month.atDay(1));
+        Instant end = dateConverter.toEndOfDayInstant(month.atEndOfMonth());
+        int queued = cardMonthlyStatementRepository.enqueueMonth(month.atDay(1), start, end, start.minus(maxConfirmationLag));
+        if (queued > 0) {
+            log.info("Queued {} card statements of {}", queued, month);
+        }
+        return queued;
+    }
+
+    // Workers take disjoint batches through SKIP LOCKED, which also spreads the work over service instances
+    public int recomputeStale() {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Integer>> results = new ArrayList<>(parallelism);
+            for (int worker = 0; worker < parallelism; worker++) {
+                results.add(executor.submit(() -> {
+                    int computed = 0;
+                    int batch;
+                    do {
+                        batch = transactionTemplate.execute(status -> computeBatch());
+                        computed += batch;
+                    } while (batch > 0);
+                    return computed;
+                }));
+            }
+
+            int computed = 0;
+            for (Future<Integer> result : results) {
+                computed += result.get();
+            }
+            if (computed > 0) {
+                log.info("Computed {} card statements", computed);
+            }
+            return computed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Card statement computation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Card statement computation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int computeBatch() {
+        List<CardMonthlyStatement> statements = cardMonthlyStatementRepository.lockStale(batchSize);
+        Instant computedAt = Instant.now();
+        for (CardMonthlyStatement statement : statements) {
+            statement.setDocument(toJson(compute(statement.getId().getCardNumber(), YearMonth.from(statement.getId().getMonth()))));
+            statement.setPageSize(transactionsPerPage);
+            statement.setStale(false);
+            statement.setComputedAt(computedAt);
+        }
+        return statements.size();
+    }
+
+    // The same queries as the live period views, so a stored month reads exactly like a computed one
+    private MonthlyStatementDocument compute(String cardNumber, YearMonth month) {
+        Instant start = dateConverter.toStartOfDayInstant(month.atDay(1));
+        Instant end = dateConverter.toEndOfDayInstant(month.atEndOfMonth());
+        Instant createdFrom = start.minus(maxConfirmationLag);
+        int rows = transactionsPerPage + 1;
+
+        return new MonthlyStatementDocument(
+                transactionsPerPage,
+                transactionRepository.sumByDayAndCategory(cardNumber, start, end, createdFrom).stream()
+                        .map(StatementDayTotal::of)
+                        .toList(),
+                transactionRepository.findFirstPageByCardInPeriod(cardNumber, start, end, createdFrom, rows),
+                transactionRepository.findFirstExpensePageByCardInPeriod(cardNumber, start, end, createdFrom, rows),
+                transactionRepository.findFirstIncomePageByCardInPeriod(cardNumber, start, end, createdFrom, rows)
+        );
+    }
+
+    private String toJson(MonthlyStatementDocument document) {
+        try {
+            return objectMapper.writeValueAsString(document);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize monthly statement", e);
+        }
+    }
+
+    private MonthlyStatementDocument fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, MonthlyStatementDocument.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to deserialize monthly statement", e);
+        }
+    }
+}
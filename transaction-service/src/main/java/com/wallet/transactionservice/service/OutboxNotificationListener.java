@@ -0,0 +1,106 @@
+package com.wallet.transactionservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Wakes the outbox relay as soon as an outbox insert commits (see the outbox_event_inserted trigger).
+// Runs on its own connection outside the Hikari pool, because LISTEN has to keep the session open.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxNotificationListener implements SmartLifecycle {
+    private static final String CHANNEL = "outbox_event";
+
+    private final OutboxRelay outboxRelay;
+    private final DataSourceProperties dataSourceProperties;
+
+    @Value("${transaction.outbox.listener.enabled}")
+    private boolean enabled;
+
+    @Value("${transaction.outbox.listener.poll-timeout-ms}")
+    private int pollTimeoutMs;
+
+    @Value("${transaction.outbox.listener.reconnect-delay-ms}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::listen, "outbox-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(),
+                    dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for outbox notifications on channel '{}'", CHANNEL);
+
+                // Events committed while we were disconnected are not announced again
+                drain();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        drain();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox listener connection lost, reconnecting in {} ms: {}", reconnectDelayMs, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            outboxRelay.drain();
+        } catch (Exception e) {
+            log.error("Outbox relay failed after notification, the scheduled poll will retry", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.entity.OutboxEvent;
+import com.wallet.transactionservice.enums.TransactionEventKey;
+import com.wallet.transactionservice.kafka.TransactionKafkaProducer;
+import com.wallet.transactionservice.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+    private final OutboxRepository outboxRepository;
+    private final TransactionKafkaProducer transactionKafkaProducer;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${transaction.outbox.relay.ack-timeout-ms}")
+    private long ackTimeoutMs;
+
+    // Must be the same on all instances, as it decides which shard lock guards a key
+    @Value("${transaction.outbox.relay.shards}")
+    private int shards;
+
+    @Value("${transaction.outbox.key}")
+    private TransactionEventKey key;
+
+    // Drains shard after shard, each until it is empty or a batch could not be fully delivered. Instances start at
+    // different shards, so they mostly work side by side instead of waiting for each other.
+    public void drain() {
+        int first = ThreadLocalRandom.current().nextInt(shards);
+        for (int i = 0; i < shards; i++) {
+            int shard = (first + i) % shards;
+            RelayedBatch batch;
+            do {
+                batch = transactionTemplate.execute(status -> relayBatch(shard));
+            } while (batch.claimed() == batchSize && batch.sent() == batch.claimed());
+        }
+    }
+
+    // The claimed rows stay locked while the whole batch is in flight and are deleted in the same transaction
+    private RelayedBatch relayBatch(int shard) {
+        if (!outboxRepository.tryLockShard(shard)) {
+            return new RelayedBatch(0, 0);
+        }
+        List<OutboxEvent> events = outboxRepository.claimShardBatch(key.name(), shards, shard, batchSize);
+        if (events.isEmpty()) {
+            return new RelayedBatch(0, 0);
+        }
+
+        Map<String, Deque<OutboxEvent>> eventsByKey = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            eventsByKey.computeIfAbsent(transactionKafkaProducer.keyOf(event), k -> new ArrayDeque<>()).add(event);
+        }
+
+        // Sent in rounds of one event per key: a key's next event only goes out once the previous one was
+        // acknowledged, so a failed event is never overtaken by a later one of the same key
+        List<Long> acknowledged = new ArrayList<>(events.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ackTimeoutMs);
+        while (!eventsByKey.isEmpty()) {
+            Map<String, CompletableFuture<?>> acks = new LinkedHashMap<>(eventsByKey.size());
+            eventsByKey.forEach((k, pending) -> acks.put(k, transactionKafkaProducer.sendTransactionEvent(pending.peek())));
+            boolean complete = awaitAcks(acks.values(), deadline);
+
+            acks.forEach((k, ack) -> {
+                Deque<OutboxEvent> pending = eventsByKey.get(k);
+                if (ack.isDone() && !ack.isCompletedExceptionally()) {
+                    acknowledged.add(pending.poll().getId());
+                    if (pending.isEmpty()) {
+                        eventsByKey.remove(k);
+                    }
+                } else {
+                    eventsByKey.remove(k);
+                }
+            });
+            if (!complete) {
+                break;
+            }
+        }
+
+        if (!acknowledged.isEmpty()) {
+            outboxRepository.deleteAllByIdIn(acknowledged);
+        }
+        if (acknowledged.size() < events.size()) {
+            log.warn("{} of {} outbox events were not acknowledged and will be retried", events.size() - acknowledged.size(), events.size());
+        }
+        return new RelayedBatch(events.size(), acknowledged.size());
+    }
+
+    // Returns false once the deadline has passed; individual failures are checked per record by the caller
+    private boolean awaitAcks(Collection<CompletableFuture<?>> acks, long deadline) {
+        try {
+            CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    private record RelayedBatch(int claimed, int sent) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.exception.PaymentFailedException;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Bounded pool for the independent remote lookups of a payment. Tasks carry the caller's request attributes
+// (FeignAuthInterceptor forwards the JWT from them) and tracing context; when the queue is full the caller runs the
+// lookup itself, which degrades to the old sequential behaviour instead of failing the payment.
+@Component
+public class PaymentLookupExecutor implements DisposableBean {
+    private final ThreadPoolExecutor executor;
+    private final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    public PaymentLookupExecutor(@Value("${transaction.payment.lookup.pool-size}") int poolSize,
+                                 @Value("${transaction.payment.lookup.queue-capacity}") int queueCapacity) {
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private int counter;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "payment-lookup-" + ++counter);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> lookup, long timeoutMs) {
+        return submit(lookup, timeoutMs, value -> {
+        });
+    }
+
+    // onAbandoned gets the result of a lookup that finished only after the returned future had already timed out or
+    // been cancelled, e.g. to undo a claim the caller will never see
+    public <T> CompletableFuture<T> submit(Supplier<T> lookup, long timeoutMs, Consumer<? super T> onAbandoned) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        ContextSnapshot snapshot = snapshotFactory.captureAll();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> {
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            try (ContextSnapshot.Scope ignored = snapshot.setThreadLocals()) {
+                return lookup.get();
+            } finally {
+                RequestContextHolder.setRequestAttributes(previous);
+            }
+        }, executor).whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (!result.complete(value) && value != null) {
+                onAbandoned.accept(value);
+            }
+        });
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Rethrows the lookup's own exception so callers see the same errors as with a direct call
+    public <T> T await(CompletableFuture<T> lookup, String name) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException timeout) {
+                throw new PaymentFailedException(name + " timed out", timeout);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PaymentFailedException(name + " failed", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,113 @@
+package com.wallet.transactionservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Payment latency as percentile histograms. {@code payment.stage} times every step of a payment, tagged
+ * with the step and whether it threw. {@code payment.duration} times the whole attempt and is tagged with
+ * the outcome (success, otp_required, failed) and, for failures, the first stage that failed.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaymentMetrics {
+    private static final String STAGE_TIMER = "payment.stage";
+    private static final String PAYMENT_TIMER = "payment.duration";
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+
+    public Attempt start() {
+        return new Attempt(Timer.start(meterRegistry));
+    }
+
+    public <T> T stage(String stage, Supplier<T> action) {
+        return stage(stage, action, null);
+    }
+
+    public void stage(String stage, Runnable action) {
+        stage(stage, () -> {
+            action.run();
+            return null;
+        }, null);
+    }
+
+    private <T> T stage(String stage, Supplier<T> action, Attempt attempt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            if (attempt != null) {
+                attempt.failedAt(stage);
+            }
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(STAGE_TIMER)
+                    .tag("stage", stage)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry));
+        }
+    }
+
+    // One payment attempt. Stages may run on lookup threads, so the failed stage is kept first-wins
+    public final class Attempt {
+        private final Timer.Sample sample;
+        private final AtomicReference<String> failedStage = new AtomicReference<>();
+
+        private Attempt(Timer.Sample sample) {
+            this.sample = sample;
+        }
+
+        public <T> T stage(String stage, Supplier<T> action) {
+            return PaymentMetrics.this.stage(stage, action, this);
+        }
+
+        public void stage(String stage, Runnable action) {
+            PaymentMetrics.this.stage(stage, () -> {
+                action.run();
+                return null;
+            }, this);
+        }
+
+        // For failures noticed outside the stage itself, e.g. a lookup that timed out while being awaited
+        public void failedAt(String stage) {
+            failedStage.compareAndSet(null, stage);
+        }
+
+        public void succeeded() {
+            stop("success", "none");
+        }
+
+        public void otpRequired() {
+            stop("otp_required", "none");
+        }
+
+        public void failed() {
+            String stage = failedStage.get();
+            stop("failed", stage == null ? "unknown" : stage);
+        }
+
+        private void stop(String outcome, String failedStage) {
+            sample.stop(Timer.builder(PAYMENT_TIMER)
+                    .tag("outcome", outcome)
+                    .tag("failed_stage", failedStage)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MIN_EXPECTED)
+                    .maximumExpectedValue(MAX_EXPECTED)
+                    .register(meterRegistry));
+        }
+    }
+}
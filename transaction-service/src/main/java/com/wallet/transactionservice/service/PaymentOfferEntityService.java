@@ -8,6 +8,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class PaymentOfferEntityService {
@@ -15,13 +20,44 @@ public class PaymentOfferEntityService {
     private final CacheService cacheService;
     private final PaymentOfferMapper paymentOfferMapper;
 
+    // An offer returned to Redis after a failed payment is already stored, so a new entity may still need an update
     @Transactional
     public PaymentOfferEntity save(PaymentOfferEntity entity) {
+        if (entity.isNew() && paymentOfferEntityRepository.existsById(entity.getId())) {
+            entity.markNotNew();
+        }
         return paymentOfferEntityRepository.save(entity);
     }
 
+    // Same check with one query for the whole list, so the new offers go out as batched inserts
+    @Transactional
+    public List<PaymentOfferEntity> saveAll(List<PaymentOfferEntity> entities) {
+        List<String> ids = entities.stream().map(PaymentOfferEntity::getId).toList();
+        Set<String> storedIds = paymentOfferEntityRepository.findAllById(ids).stream()
+                .map(PaymentOfferEntity::getId)
+                .collect(Collectors.toSet());
+        for (PaymentOfferEntity entity : entities) {
+            if (storedIds.contains(entity.getId())) {
+                entity.markNotNew();
+            }
+        }
+        return paymentOfferEntityRepository.saveAll(entities);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentOfferEntity> findAllById(Collection<String> ids) {
+        return paymentOfferEntityRepository.findAllById(ids);
+    }
+
     public void returnOffer(PaymentOfferEntity paymentOfferEntity) {
         PaymentOffer offer = paymentOfferMapper.toDto(paymentOfferEntity);
         cacheService.returnOffer(offer);
     }
+
+    public void returnOffers(List<PaymentOfferEntity> paymentOfferEntities) {
+        List<PaymentOffer> offers = paymentOfferEntities.stream()
+                .map(paymentOfferMapper::toDto)
+                .toList();
+        cacheService.returnOffers(offers);
+    }
 }
@@ -8,11 +8,15 @@ import com.wallet.transactionservice.feign.CardFeignClient;
 import com.wallet.transactionservice.mapper.PaymentOfferMapper;
 import com.wallet.transactionservice.util.PaymentValidator;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentOrchestrator {
@@ -23,45 +27,253 @@ public class PaymentOrchestrator {
     private final PaymentOfferEntityService paymentOfferEntityService;
     private final PaymentOfferMapper paymentOfferMapper;
     private final OtpService otpService;
+    private final PaymentLookupExecutor paymentLookupExecutor;
+    private final PaymentMetrics paymentMetrics;
+    private final SpendCounterService spendCounterService;
+
+    @Value("${transaction.payment.lookup.offer-timeout-ms}")
+    private long offerLookupTimeoutMs;
+
+    @Value("${transaction.payment.lookup.card-timeout-ms}")
+    private long cardLookupTimeoutMs;
+
+    @Value("${transaction.payment.lookup.spend-timeout-ms}")
+    private long spendLookupTimeoutMs;
 
     public PaymentResult processPayment(UUID userId, String offerId, PaymentRequestDto paymentRequest) {
-        PaymentOffer paymentOffer = cacheService.getPaymentOfferById(offerId);
-        CardInfoDto cardInfo = cardFeignClient.getCardByNumber(paymentRequest.getCardNumber());
-        paymentValidator.validatePayment(paymentRequest, cardInfo, userId, paymentOffer);
+        PaymentMetrics.Attempt attempt = paymentMetrics.start();
+        try {
+            PaymentResult result = processPayment(userId, offerId, paymentRequest, attempt);
+            if (result.requiresOtp()) {
+                attempt.otpRequired();
+            } else {
+                attempt.succeeded();
+            }
+            return result;
+        } catch (RuntimeException e) {
+            attempt.failed();
+            throw e;
+        }
+    }
 
-        PaymentOfferEntity paymentOfferEntity = paymentOfferMapper.toEntity(paymentOffer);
-        PaymentOfferEntity savedOffer = paymentOfferEntityService.save(paymentOfferEntity);
+    private PaymentResult processPayment(UUID userId, String offerId, PaymentRequestDto paymentRequest, PaymentMetrics.Attempt attempt) {
+        // The lookups start together; they are awaited in the old order, so an unknown offer is still reported first.
+        // A claim that only succeeds after its lookup timed out belongs to a failed request and is put back.
+        CompletableFuture<PaymentOffer> offerLookup = paymentLookupExecutor.submit(
+                () -> attempt.stage("offer_lookup", () -> cacheService.claimOffer(offerId)), offerLookupTimeoutMs,
+                lateOffer -> returnOffers(List.of(lateOffer)));
+        CompletableFuture<CardInfoDto> cardLookup = paymentLookupExecutor.submit(
+                () -> attempt.stage("card_lookup", () -> cardFeignClient.getCardByNumber(paymentRequest.getCardNumber())), cardLookupTimeoutMs);
+        CompletableFuture<SpendTotals> spendLookup = paymentLookupExecutor.submit(
+                () -> attempt.stage("spend_lookup", () -> spendCounterService.getTotals(paymentRequest.getCardNumber())), spendLookupTimeoutMs);
 
-        Transaction transaction = transactionService.createTransaction(userId, savedOffer, paymentRequest.getCardNumber());
+        PaymentOffer paymentOffer;
+        try {
+            paymentOffer = paymentLookupExecutor.await(offerLookup, "Payment offer lookup");
+        } catch (RuntimeException e) {
+            attempt.failedAt("offer_lookup");
+            cardLookup.cancel(true);
+            spendLookup.cancel(true);
+            throw e;
+        }
 
-        cacheService.removeOffer(savedOffer.getId());
+        // The offer is claimed now; until the pending transaction exists, any failure has to put it back
+        CardInfoDto cardInfo;
+        Transaction transaction;
+        try {
+            try {
+                cardInfo = paymentLookupExecutor.await(cardLookup, "Card lookup");
+            } catch (RuntimeException e) {
+                attempt.failedAt("card_lookup");
+                throw e;
+            }
+            attempt.stage("validation", () -> {
+                paymentValidator.validatePayment(paymentRequest, cardInfo, userId, paymentOffer);
+                paymentValidator.validateSpendLimits(spendTotals(spendLookup), 1, paymentOffer.amount().value());
+            });
+
+            PaymentOfferEntity savedOffer = attempt.stage("offer_insert",
+                    () -> paymentOfferEntityService.save(paymentOfferMapper.toEntity(paymentOffer)));
+            transaction = attempt.stage("create_transaction",
+                    () -> transactionService.createTransaction(userId, savedOffer, paymentRequest.getCardNumber()));
+        } catch (RuntimeException e) {
+            cacheService.returnOffer(paymentOffer);
+            throw e;
+        }
+
+        // Funds are reserved before the OTP step too, so a confirmed OTP payment only has to capture them
+        authorizeFunds(transaction, paymentOffer.amount().value(), attempt);
 
         if (shouldRequireOtpVerification(cardInfo.getLimit(), paymentOffer)) {
             return handleOtpVerification(userId, paymentOffer);
         }
 
-        executeFinancialTransaction(transaction, paymentOffer.amount().value());
+        completeTransaction(transaction, attempt);
 
         return PaymentResult.success();
     }
 
-    public void executeFinancialTransaction(Transaction transaction, BigDecimal amount) {
+    // Settles many offers of one user at once: one Redis round trip for all offers, one lookup per distinct card,
+    // and per card a single reservation, a single debit and batched inserts. A failure only fails its own offers,
+    // or with authorisation and capture, the offers of its card.
+    public BulkPaymentResponseDto processBulkPayment(UUID userId, List<BulkPaymentItemDto> payments) {
+        BulkPaymentResult[] results = new BulkPaymentResult[payments.size()];
+
+        List<String> offerIds = payments.stream().map(BulkPaymentItemDto::getOfferId).distinct().toList();
+        Map<String, PaymentOffer> offers = paymentMetrics.stage("bulk_offer_claim", () -> cacheService.claimOffers(offerIds));
+
+        Map<String, CompletableFuture<CardInfoDto>> cardLookups = new HashMap<>();
+        Map<String, CompletableFuture<SpendTotals>> spendLookups = new HashMap<>();
+        for (BulkPaymentItemDto payment : payments) {
+            if (offers.containsKey(payment.getOfferId())) {
+                cardLookups.computeIfAbsent(payment.getCardNumber(), cardNumber -> paymentLookupExecutor.submit(
+                        () -> paymentMetrics.stage("card_lookup", () -> cardFeignClient.getCardByNumber(cardNumber)), cardLookupTimeoutMs));
+                spendLookups.computeIfAbsent(payment.getCardNumber(), cardNumber -> paymentLookupExecutor.submit(
+                        () -> paymentMetrics.stage("spend_lookup", () -> spendCounterService.getTotals(cardNumber)), spendLookupTimeoutMs));
+            }
+        }
+
+        // Indexes into payments, grouped by card, of the offers that passed validation
+        Map<String, List<Integer>> acceptedByCard = new LinkedHashMap<>();
+        Map<String, BigDecimal> totalByCard = new HashMap<>();
+        Set<String> seenOfferIds = new HashSet<>();
+        List<PaymentOffer> rejectedOffers = new ArrayList<>();
+        for (int i = 0; i < payments.size(); i++) {
+            BulkPaymentItemDto payment = payments.get(i);
+            String offerId = payment.getOfferId();
+            PaymentOffer offer = offers.get(offerId);
+            if (!seenOfferIds.add(offerId)) {
+                results[i] = BulkPaymentResult.failure(offerId, "Offer is already part of this request");
+                continue;
+            }
+            if (offer == null) {
+                results[i] = BulkPaymentResult.failure(offerId, "No offer found for id: " + offerId);
+                continue;
+            }
+
+            try {
+                CardInfoDto cardInfo = paymentLookupExecutor.await(cardLookups.get(payment.getCardNumber()), "Card lookup");
+                paymentValidator.validateCard(payment, cardInfo, userId);
+                if (shouldRequireOtpVerification(cardInfo.getLimit(), offer)) {
+                    results[i] = BulkPaymentResult.failure(offerId, "The payment exceeds the card limit and needs OTP verification, pay this offer separately");
+                    rejectedOffers.add(offer);
+                    continue;
+                }
+                BigDecimal total = totalByCard.getOrDefault(payment.getCardNumber(), BigDecimal.ZERO).add(offer.amount().value());
+                paymentValidator.validateBalance(cardInfo, total);
+                int count = acceptedByCard.getOrDefault(payment.getCardNumber(), List.of()).size() + 1;
+                paymentValidator.validateSpendLimits(spendTotals(spendLookups.get(payment.getCardNumber())), count, total);
+                totalByCard.put(payment.getCardNumber(), total);
+                acceptedByCard.computeIfAbsent(payment.getCardNumber(), cardNumber -> new ArrayList<>()).add(i);
+            } catch (RuntimeException e) {
+                results[i] = BulkPaymentResult.failure(offerId, e.getMessage());
+                rejectedOffers.add(offer);
+            }
+        }
+        returnOffers(rejectedOffers);
+
+        if (!acceptedByCard.isEmpty()) {
+            settle(userId, payments, offers, acceptedByCard, results);
+        }
+        return BulkPaymentResponseDto.of(Arrays.asList(results));
+    }
+
+    private void settle(UUID userId, List<BulkPaymentItemDto> payments, Map<String, PaymentOffer> offers,
+                        Map<String, List<Integer>> acceptedByCard, BulkPaymentResult[] results) {
+        Map<String, List<PaymentOfferEntity>> offerEntitiesByCard = new LinkedHashMap<>();
+        acceptedByCard.forEach((cardNumber, indexes) -> offerEntitiesByCard.put(cardNumber, indexes.stream()
+                .map(i -> paymentOfferMapper.toEntity(offers.get(payments.get(i).getOfferId())))
+                .toList()));
+
+        Map<String, List<Transaction>> transactionsByCard;
+        try {
+            transactionsByCard = paymentMetrics.stage("bulk_create_transactions",
+                    () -> transactionService.createTransactions(userId, offerEntitiesByCard));
+        } catch (RuntimeException e) {
+            log.error("Failed to create bulk payment transactions for user {}", userId, e);
+            List<PaymentOffer> acceptedOffers = new ArrayList<>();
+            acceptedByCard.values().forEach(indexes -> indexes.forEach(i -> {
+                String offerId = payments.get(i).getOfferId();
+                results[i] = BulkPaymentResult.failure(offerId, "Payment failed");
+                acceptedOffers.add(offers.get(offerId));
+            }));
+            returnOffers(acceptedOffers);
+            return;
+        }
+
+        transactionsByCard.forEach((cardNumber, transactions) -> {
+            List<Integer> indexes = acceptedByCard.get(cardNumber);
+            List<UUID> transactionIds = transactions.stream().map(Transaction::getId).toList();
+            List<CardHoldDto> holds = new ArrayList<>(transactions.size());
+            for (int k = 0; k < transactions.size(); k++) {
+                PaymentOffer offer = offers.get(payments.get(indexes.get(k)).getOfferId());
+                holds.add(new CardHoldDto(transactions.get(k).getId(), offer.amount().value()));
+            }
+
+            try {
+                paymentMetrics.stage("bulk_authorise", () -> cardFeignClient.authorizePayments(cardNumber, userId, holds));
+                paymentMetrics.stage("bulk_finish_transactions", () -> transactionService.finishTransactions(cardNumber, transactionIds));
+                indexes.forEach(i -> results[i] = BulkPaymentResult.success(payments.get(i).getOfferId()));
+            } catch (RuntimeException e) {
+                log.warn("Bulk payment of {} offers failed for a card of user {}: {}", indexes.size(), userId, e.getMessage());
+                transactionService.releaseHolds(transactionIds);
+                transactionIds.forEach(this::failTransaction);
+                indexes.forEach(i -> results[i] = BulkPaymentResult.failure(payments.get(i).getOfferId(), "Payment failed"));
+            }
+        });
+    }
+
+    // The spend limits are a soft control: counters that can't be read in time don't block the payment
+    private SpendTotals spendTotals(CompletableFuture<SpendTotals> spendLookup) {
         try {
-            cardFeignClient.createPayment(
+            return paymentLookupExecutor.await(spendLookup, "Spend counter lookup");
+        } catch (RuntimeException e) {
+            log.warn("Spend limits not checked: {}", e.getMessage());
+            return SpendTotals.EMPTY;
+        }
+    }
+
+    // failTransaction also puts the offer back into Redis
+    private void failTransaction(UUID transactionId) {
+        try {
+            transactionService.failTransaction(transactionId);
+        } catch (Exception e) {
+            log.error("Failed to mark transaction {} as failed, it expires as pending", transactionId, e);
+        }
+    }
+
+    private void returnOffers(List<PaymentOffer> offers) {
+        try {
+            cacheService.returnOffers(offers);
+        } catch (Exception e) {
+            log.error("Failed to return {} offers to Redis", offers.size(), e);
+        }
+    }
+
+    private void authorizeFunds(Transaction transaction, BigDecimal amount, PaymentMetrics.Attempt attempt) {
+        try {
+            attempt.stage("authorise", () -> cardFeignClient.authorizePayment(
                     transaction.getCardNumber(),
+                    transaction.getId(),
                     transaction.getUserId(),
                     amount
-            );
+            ));
         } catch (Exception e) {
+            // A timed out call may still have reserved the funds
+            transactionService.releaseHolds(List.of(transaction.getId()));
             transactionService.failTransaction(transaction.getId());
             throw new PaymentFailedException("Payment failed", e);
         }
+    }
 
+    // The hold is only captured after finishTransaction has committed, so on failure nothing was debited and it can be released
+    private void completeTransaction(Transaction transaction, PaymentMetrics.Attempt attempt) {
         try {
-            transactionService.finishTransaction(transaction.getId());
+            attempt.stage("finish_transaction", () -> transactionService.finishTransaction(transaction.getId()));
         } catch (Exception e) {
-            // todo: возврат средств
-            throw e;
+            transactionService.releaseHolds(List.of(transaction.getId()));
+            transactionService.failTransaction(transaction.getId());
+            throw new PaymentFailedException("Payment failed", e);
         }
     }
 
@@ -0,0 +1,90 @@
+package com.wallet.transactionservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.transactionservice.dto.PeriodVersion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Serialized period responses of closed periods, keyed by their ETag. The ETag covers the request and the period
+// version, so a late transaction yields a new tag and the old entry simply ages out of the LRU.
+@Component
+public class PeriodResponseCache {
+    private final ObjectMapper objectMapper;
+    private final Map<String, byte[]> responses;
+
+    public PeriodResponseCache(ObjectMapper objectMapper,
+                               @Value("${transaction.period-cache.max-entries}") int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public String etag(String view, String cardNumber, LocalDate from, LocalDate to, String cursor, PeriodVersion version) {
+        String key = String.join("|", view, cardNumber, from.toString(), to.toString(), cursor == null ? "" : cursor,
+                String.valueOf(version.getTransactionCount()),
+                String.valueOf(version.getConfirmedCount()),
+                String.valueOf(version.getLastConfirmedAt()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Aggregates and serializes outside the lock; two concurrent misses for one tag both compute the same bytes
+    public byte[] get(String etag, Supplier<?> response) {
+        byte[] body;
+        synchronized (responses) {
+            body = responses.get(etag);
+        }
+        if (body != null) {
+            return body;
+        }
+
+        body = serialize(response.get());
+        synchronized (responses) {
+            responses.put(etag, body);
+        }
+        return body;
+    }
+
+    public byte[] serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize period response", e);
+        }
+    }
+
+    // If-None-Match may list several tags, weak ones included, or be *
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
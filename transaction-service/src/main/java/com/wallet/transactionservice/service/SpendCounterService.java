@@ -0,0 +1,166 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.dto.SpendTotals;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.enums.SpendWindow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rolling per-card spend counters for the limit checks of a payment. Every window of a card is a Redis hash
+ * {@code spend:{card}:<window>} with two fields per bucket: {@code <bucket>} holds the spent amount in minor
+ * units and {@code <bucket>:n} the number of payments. Reading all windows is one EVAL, whatever the card's
+ * history. Only spending is counted; the counters are a cache of transaction_ and are updated after commit, so a
+ * Redis outage costs accuracy of the limits, never a payment.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpendCounterService {
+    private static final String SPEND_KEY = "spend:";
+    private static final SpendWindow[] WINDOWS = SpendWindow.values();
+
+    // ARGV: amount, count, then bucket, oldest live bucket and ttl per key. A bucket that already left its window is
+    // not written, so reverting an old payment can't resurrect it. Stale buckets are pruned on every write.
+    private static final RedisScript<Void> ADD_SCRIPT = RedisScript.of("""
+            for i = 1, #KEYS do
+                local base = 2 + (i - 1) * 3
+                local oldest = tonumber(ARGV[base + 2])
+                if tonumber(ARGV[base + 1]) >= oldest then
+                    redis.call('HINCRBY', KEYS[i], ARGV[base + 1], ARGV[1])
+                    redis.call('HINCRBY', KEYS[i], ARGV[base + 1] .. ':n', ARGV[2])
+                    redis.call('PEXPIRE', KEYS[i], ARGV[base + 3])
+                end
+                for _, field in ipairs(redis.call('HKEYS', KEYS[i])) do
+                    if tonumber(string.match(field, '^%d+')) < oldest then
+                        redis.call('HDEL', KEYS[i], field)
+                    end
+                end
+            end
+            """);
+
+    // ARGV: oldest live bucket per key. Returns amount and count per key.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TOTALS_SCRIPT = RedisScript.of("""
+            local totals = {}
+            for i = 1, #KEYS do
+                local oldest = tonumber(ARGV[i])
+                local amount, count = 0, 0
+                local values = redis.call('HGETALL', KEYS[i])
+                for j = 1, #values, 2 do
+                    local bucket, suffix = string.match(values[j], '^(%d+)(.*)$')
+                    if bucket and tonumber(bucket) >= oldest then
+                        if suffix == ':n' then
+                            count = count + tonumber(values[j + 1])
+                        else
+                            amount = amount + tonumber(values[j + 1])
+                        end
+                    end
+                end
+                totals[2 * i - 1] = amount
+                totals[2 * i] = count
+            end
+            return totals
+            """, List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // Falls back to empty totals when Redis is unavailable: the limits are a soft control, the balance check is not
+    public SpendTotals getTotals(String cardNumber) {
+        Instant now = Instant.now();
+        List<String> args = new ArrayList<>(WINDOWS.length);
+        for (SpendWindow window : WINDOWS) {
+            args.add(String.valueOf(window.oldestLiveBucket(now)));
+        }
+
+        List<?> totals;
+        try {
+            totals = redisTemplate.execute(TOTALS_SCRIPT, keys(cardNumber), args.toArray());
+        } catch (Exception e) {
+            log.warn("Failed to read spend counters of a card, limits are not checked: {}", e.getMessage());
+            return SpendTotals.EMPTY;
+        }
+        if (totals == null || totals.size() != WINDOWS.length * 2) {
+            return SpendTotals.EMPTY;
+        }
+
+        return new SpendTotals(
+                count(totals, SpendWindow.MINUTE), TransactionAggregationEngine.toAmount(amount(totals, SpendWindow.MINUTE)),
+                count(totals, SpendWindow.DAY), TransactionAggregationEngine.toAmount(amount(totals, SpendWindow.DAY)),
+                count(totals, SpendWindow.MONTH), TransactionAggregationEngine.toAmount(amount(totals, SpendWindow.MONTH))
+        );
+    }
+
+    // Called next to the rollup update in the confirming transaction; Redis is only touched once it has committed
+    public void recordConfirmed(Transaction transaction) {
+        afterCommit(transaction, 1);
+    }
+
+    public void revertConfirmed(Transaction transaction) {
+        afterCommit(transaction, -1);
+    }
+
+    private void afterCommit(Transaction transaction, int sign) {
+        if (transaction.getAmount().signum() >= 0 || transaction.getConfirmedAt() == null) {
+            return;
+        }
+        String cardNumber = transaction.getCardNumber();
+        long amountMinor = -TransactionAggregationEngine.toMinorUnits(transaction.getAmount()) * sign;
+        Instant confirmedAt = transaction.getConfirmedAt();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(cardNumber, confirmedAt, amountMinor, sign);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(cardNumber, confirmedAt, amountMinor, sign);
+            }
+        });
+    }
+
+    private void add(String cardNumber, Instant at, long amountMinor, int count) {
+        Instant now = Instant.now();
+        List<String> args = new ArrayList<>(2 + WINDOWS.length * 3);
+        args.add(String.valueOf(amountMinor));
+        args.add(String.valueOf(count));
+        for (SpendWindow window : WINDOWS) {
+            args.add(String.valueOf(window.bucketOf(at)));
+            args.add(String.valueOf(window.oldestLiveBucket(now)));
+            args.add(String.valueOf(window.ttlMs()));
+        }
+
+        try {
+            redisTemplate.execute(ADD_SCRIPT, keys(cardNumber), args.toArray());
+        } catch (Exception e) {
+            log.warn("Failed to update spend counters of a card: {}", e.getMessage());
+        }
+    }
+
+    // The hash tag keeps all windows of a card in one cluster slot, as a single script has to touch them together
+    private static List<String> keys(String cardNumber) {
+        List<String> keys = new ArrayList<>(WINDOWS.length);
+        for (SpendWindow window : WINDOWS) {
+            keys.add(SPEND_KEY + "{" + cardNumber + "}:" + window.getKey());
+        }
+        return keys;
+    }
+
+    private static long amount(List<?> totals, SpendWindow window) {
+        return ((Number) totals.get(window.ordinal() * 2)).longValue();
+    }
+
+    private static long count(List<?> totals, SpendWindow window) {
+        return ((Number) totals.get(window.ordinal() * 2 + 1)).longValue();
+    }
+}
@@ -0,0 +1,190 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.dto.CategoryIncome;
+import com.wallet.transactionservice.dto.CategorySpending;
+import com.wallet.transactionservice.dto.DailyCategoryTotal;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.util.DateConverter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds every period aggregate in a single pass. Amounts are accumulated as
+ * {@code long} minor units (scale of {@code transaction_.amount}) in arrays indexed by
+ * day offset from {@code from} and {@link TransactionCategory#ordinal()}; BigDecimal
+ * values are only created by the getters.
+ */
+public class TransactionAggregationEngine {
+    private static final int AMOUNT_SCALE = 4;
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+
+    private final long fromEpochDay;
+    private final int days;
+
+    private int transactionCount;
+    private long totalSpending;
+    private long totalIncome;
+
+    private final long[] dailySpending;
+    private final long[] dailyIncome;
+    private final int[] dailyCount;
+    private final int[] dailySpendingCount;
+    private final int[] dailyIncomeCount;
+
+    private final long[] categorySpending = new long[CATEGORIES.length];
+    private final long[] categoryIncome = new long[CATEGORIES.length];
+    private final int[] categorySpendingCount = new int[CATEGORIES.length];
+    private final int[] categoryIncomeCount = new int[CATEGORIES.length];
+
+    public TransactionAggregationEngine(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Period end can't be before its start");
+        }
+        this.fromEpochDay = from.toEpochDay();
+        this.days = Math.toIntExact(to.toEpochDay() - fromEpochDay + 1);
+        this.dailySpending = new long[days];
+        this.dailyIncome = new long[days];
+        this.dailyCount = new int[days];
+        this.dailySpendingCount = new int[days];
+        this.dailyIncomeCount = new int[days];
+    }
+
+    public static TransactionAggregationEngine of(List<Transaction> transactions, LocalDate from, LocalDate to, DateConverter dateConverter) {
+        TransactionAggregationEngine engine = new TransactionAggregationEngine(from, to);
+        for (Transaction t : transactions) {
+            engine.add(dateConverter.toEpochDay(t.getConfirmedAt()), t.getOffer().getCategory(), t.getAmount());
+        }
+        return engine;
+    }
+
+    public static TransactionAggregationEngine ofDailyCategoryTotals(List<? extends DailyCategoryTotal> totals, LocalDate from, LocalDate to) {
+        TransactionAggregationEngine engine = new TransactionAggregationEngine(from, to);
+        for (DailyCategoryTotal total : totals) {
+            engine.add(
+                    total.getEpochDay(),
+                    TransactionCategory.valueOf(total.getCategory()),
+                    toMinorUnits(total.getAmount()),
+                    total.getTransactionCount()
+            );
+        }
+        return engine;
+    }
+
+    public void add(long epochDay, TransactionCategory category, BigDecimal amount) {
+        add(epochDay, category, toMinorUnits(amount), 1);
+    }
+
+    public void add(long epochDay, TransactionCategory category, long amountMinor, int count) {
+        int day = dayIndex(epochDay);
+        int c = category.ordinal();
+        transactionCount += count;
+        dailyCount[day] += count;
+
+        if (amountMinor < 0) {
+            long spending = -amountMinor;
+            totalSpending += spending;
+            dailySpending[day] += spending;
+            dailySpendingCount[day] += count;
+            categorySpending[c] += spending;
+            categorySpendingCount[c] += count;
+        } else if (amountMinor > 0) {
+            totalIncome += amountMinor;
+            dailyIncome[day] += amountMinor;
+            dailyIncomeCount[day] += count;
+            categoryIncome[c] += amountMinor;
+            categoryIncomeCount[c] += count;
+        }
+    }
+
+    public boolean isEmpty() {
+        return transactionCount == 0;
+    }
+
+    public BigDecimal getTotalSpending() {
+        return toAmount(totalSpending);
+    }
+
+    public BigDecimal getTotalIncome() {
+        return toAmount(totalIncome);
+    }
+
+    public Map<LocalDate, BigDecimal> getDailyTotals() {
+        Map<LocalDate, BigDecimal> totals = new HashMap<>();
+        for (int day = 0; day < days; day++) {
+            if (dailyCount[day] > 0) {
+                totals.put(toDate(day), toAmount(dailyIncome[day] - dailySpending[day]));
+            }
+        }
+        return totals;
+    }
+
+    public Map<LocalDate, BigDecimal> getDailySpendingTotals() {
+        Map<LocalDate, BigDecimal> totals = new HashMap<>();
+        for (int day = 0; day < days; day++) {
+            if (dailySpendingCount[day] > 0) {
+                totals.put(toDate(day), toAmount(-dailySpending[day]));
+            }
+        }
+        return totals;
+    }
+
+    public Map<LocalDate, BigDecimal> getDailyIncomeTotals() {
+        Map<LocalDate, BigDecimal> totals = new HashMap<>();
+        for (int day = 0; day < days; day++) {
+            if (dailyIncomeCount[day] > 0) {
+                totals.put(toDate(day), toAmount(dailyIncome[day]));
+            }
+        }
+        return totals;
+    }
+
+    public List<CategorySpending> getCategorySpending() {
+        List<CategorySpending> result = new ArrayList<>();
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            if (categorySpendingCount[c] > 0) {
+                result.add(new CategorySpending(CATEGORIES[c].toString(), toAmount(categorySpending[c])));
+            }
+        }
+        result.sort(Comparator.comparing(CategorySpending::spending).reversed());
+        return result;
+    }
+
+    public List<CategoryIncome> getCategoryIncome() {
+        List<CategoryIncome> result = new ArrayList<>();
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            if (categoryIncomeCount[c] > 0) {
+                result.add(new CategoryIncome(CATEGORIES[c].toString(), toAmount(categoryIncome[c])));
+            }
+        }
+        result.sort(Comparator.comparing(CategoryIncome::income).reversed());
+        return result;
+    }
+
+    private int dayIndex(long epochDay) {
+        long index = epochDay - fromEpochDay;
+        if (index < 0 || index >= days) {
+            throw new IllegalArgumentException("Transaction day is outside of the aggregated period");
+        }
+        return (int) index;
+    }
+
+    private LocalDate toDate(int dayIndex) {
+        return LocalDate.ofEpochDay(fromEpochDay + dayIndex);
+    }
+
+    static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+}
@@ -0,0 +1,113 @@
+package com.wallet.transactionservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.wallet.transactionservice.dto.TransactionExportRow;
+import com.wallet.transactionservice.enums.ExportFormat;
+import com.wallet.transactionservice.repository.TransactionRepository;
+import com.wallet.transactionservice.util.DateConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Writes a card's statement row by row while the cursor is read, so memory does not grow with the period length
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final String CSV_HEADER = "id,confirmed_at,vendor,category,amount,fee,status";
+
+    private final TransactionRepository transactionRepository;
+    private final DateConverter dateConverter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${transaction.partitioning.max-confirmation-lag}")
+    private Duration maxConfirmationLag;
+
+    // The cursor only streams inside a transaction; the caller's output stream is not closed
+    @Transactional(readOnly = true)
+    public long export(String cardNumber, LocalDate from, LocalDate to, ExportFormat format, OutputStream out) throws IOException {
+        Instant start = dateConverter.toStartOfDayInstant(from);
+        Instant end = dateConverter.toEndOfDayInstant(to);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try (Stream<TransactionExportRow> rows = transactionRepository.streamByCardInPeriod(
+                cardNumber, start, end, start.minus(maxConfirmationLag))) {
+            long written = switch (format) {
+                case CSV -> writeCsv(rows.iterator(), writer);
+                case NDJSON -> writeNdjson(rows.iterator(), writer);
+            };
+            writer.flush();
+            return written;
+        }
+    }
+
+    private long writeCsv(Iterator<TransactionExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long written = 0;
+        while (rows.hasNext()) {
+            TransactionExportRow row = rows.next();
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writer.write(String.valueOf(row.confirmedAt()));
+            writer.write(',');
+            writeCsvField(writer, row.vendor());
+            writer.write(',');
+            writer.write(String.valueOf(row.category()));
+            writer.write(',');
+            writer.write(row.amount().toPlainString());
+            writer.write(',');
+            writer.write(row.fee().toPlainString());
+            writer.write(',');
+            writer.write(String.valueOf(row.status()));
+            writer.write('\n');
+            written++;
+        }
+        return written;
+    }
+
+    private long writeNdjson(Iterator<TransactionExportRow> rows, Writer writer) throws IOException {
+        long written = 0;
+        // Leaves the writer open; export() flushes it and the servlet container owns the stream
+        try (SequenceWriter sequence = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(writer)) {
+            while (rows.hasNext()) {
+                sequence.write(rows.next());
+                written++;
+            }
+        }
+        if (written > 0) {
+            writer.write('\n');
+        }
+        return written;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
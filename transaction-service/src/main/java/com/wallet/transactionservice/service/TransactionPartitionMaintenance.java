@@ -0,0 +1,68 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.repository.TransactionPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+// Months are created ahead of the first insert that lands in them; transaction_default only catches stray rows.
+// Partitions past the retention window are detached and moved to the transaction_archive schema.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionPartitionMaintenance {
+    private static final String PARTITION_PREFIX = "transaction_";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final TransactionPartitionRepository transactionPartitionRepository;
+
+    @Value("${transaction.partitioning.months-ahead}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${transaction.partitioning.retention-months}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${transaction.partitioning.maintenance-cron}", zone = "UTC")
+    public void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        createFuturePartitions(currentMonth);
+        if (retentionMonths > 0) {
+            archiveExpiredPartitions(currentMonth.minusMonths(retentionMonths));
+        }
+    }
+
+    private void createFuturePartitions(YearMonth currentMonth) {
+        LocalDate firstMonth = currentMonth.atDay(1);
+        LocalDate lastMonth = currentMonth.plusMonths(monthsAhead).atDay(1);
+        int created = transactionPartitionRepository.ensurePartitions(firstMonth, lastMonth);
+        if (created > 0) {
+            log.info("Created {} transaction_ partitions up to {}", created, lastMonth);
+        }
+    }
+
+    private void archiveExpiredPartitions(YearMonth oldestKeptMonth) {
+        for (String partition : transactionPartitionRepository.findMonthlyPartitions()) {
+            YearMonth month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+            if (month.isBefore(oldestKeptMonth)) {
+                try {
+                    transactionPartitionRepository.detachAndArchive(partition);
+                    log.info("Archived partition {}", partition);
+                } catch (Exception e) {
+                    log.error("Failed to archive partition {}", partition, e);
+                    return;
+                }
+            }
+        }
+    }
+}
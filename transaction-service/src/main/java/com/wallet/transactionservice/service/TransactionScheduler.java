@@ -1,26 +1,36 @@
 package com.wallet.transactionservice.service;
 
-import com.wallet.transactionservice.entity.Transaction;
-import com.wallet.transactionservice.repository.TransactionRepository;
+import com.wallet.transactionservice.dto.ExpiredTransactions;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.util.List;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class TransactionScheduler {
-    private final TransactionRepository transactionRepository;
     private final TransactionService transactionService;
+    private final PaymentOfferEntityService paymentOfferEntityService;
+
+    @Value("${transaction.scheduler.pending-cleanup.chunk-size}")
+    private int chunkSize;
 
+    // Every chunk commits on its own, so locks are held for one chunk rather than the whole backlog
     @Scheduled(fixedDelayString = "${transaction.scheduler.pending-cleanup.delay-ms}")
-    @Transactional
     public void removePendingTransactions() {
-        List<Transaction> removedTransactions = transactionRepository.cleanUpPendingTransactions();
-        removedTransactions.forEach(
-                t -> transactionService.cancelTransaction(t.getId())
-        );
+        ExpiredTransactions expired;
+        do {
+            expired = transactionService.expirePendingTransactions(chunkSize);
+            if (!expired.isEmpty()) {
+                transactionService.releaseHolds(expired.transactionIds());
+            }
+            try {
+                paymentOfferEntityService.returnOffers(expired.offers());
+            } catch (Exception e) {
+                log.error("Failed to return {} expired offers to Redis", expired.offers().size(), e);
+            }
+        } while (!expired.isEmpty());
     }
 }
@@ -13,21 +13,24 @@ import com.wallet.transactionservice.exception.TransactionNotFoundException;
 import com.wallet.transactionservice.feign.AnalyticsFeignClient;
 import com.wallet.transactionservice.feign.CardFeignClient;
 import com.wallet.transactionservice.mapper.TransactionMapper;
+import com.wallet.transactionservice.repository.CardLastUsedRepository;
 import com.wallet.transactionservice.repository.OutboxRepository;
 import com.wallet.transactionservice.repository.TransactionRepository;
 import com.wallet.transactionservice.util.DateConverter;
 import com.wallet.transactionservice.util.LocalDateValidator;
 import com.wallet.transactionservice.util.PaymentValidator;
+import com.wallet.transactionservice.util.TransactionCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Limit;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
@@ -48,88 +51,182 @@ public class TransactionService {
     private final CardFeignClient cardFeignClient;
     private final DateConverter dateConverter;
     private final AnalyticsFeignClient analyticsFeignClient;
+    private final CardDailyRollupService cardDailyRollupService;
+    private final SpendCounterService spendCounterService;
+    private final MonthlyStatementService monthlyStatementService;
+    private final PaymentMetrics paymentMetrics;
+    private final CardLastUsedRepository cardLastUsedRepository;
+    private final CardCaptureService cardCaptureService;
 
     @Value("${transaction.per-page}")
     private int transactionsPerPage;
 
+    @Value("${transaction.rollup.read-enabled}")
+    private boolean rollupReadEnabled;
+
+    @Value("${transaction.card-last-used.read-enabled}")
+    private boolean cardLastUsedReadEnabled;
+
+    @Value("${transaction.partitioning.max-confirmation-lag}")
+    private Duration maxConfirmationLag;
+
+    // Probes every monthly partition: for callers that only know the id (the API, a capture rejected at any age)
     @Transactional(readOnly = true)
     public Transaction getTransaction(UUID transactionId) {
         return transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction not found"));
     }
 
+    // For the payment flow, which only handles transactions it created within the confirmation window
+    private Transaction getRecentTransaction(UUID transactionId) {
+        return transactionRepository.findRecentById(transactionId, recentCreatedFrom())
+                .orElseThrow(() -> new TransactionNotFoundException("Transaction not found"));
+    }
+
     @Transactional(readOnly = true)
     public TransactionInfoDto getTransactionInfo(UUID transactionId) {
-        Transaction transaction = transactionRepository.findById(transactionId)
+        Transaction transaction = transactionRepository.findByIdWithOffer(transactionId)
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction not found"));
         return transactionMapper.toInfo(transaction);
     }
 
     @Transactional
     public Transaction createTransaction(UUID userId, PaymentOfferEntity paymentOfferEntity, String cardNumber) {
+        return transactionRepository.save(buildPendingTransaction(userId, paymentOfferEntity, cardNumber));
+    }
+
+    // Bulk counterpart of saving the offers and createTransaction: offers and transactions go out as batched inserts
+    @Transactional
+    public Map<String, List<Transaction>> createTransactions(UUID userId, Map<String, List<PaymentOfferEntity>> offersByCard) {
+        List<PaymentOfferEntity> offers = offersByCard.values().stream()
+                .flatMap(List::stream)
+                .toList();
+        paymentOfferEntityService.saveAll(offers);
+
+        Map<String, List<Transaction>> transactionsByCard = new LinkedHashMap<>();
+        List<Transaction> transactions = new ArrayList<>(offers.size());
+        offersByCard.forEach((cardNumber, cardOffers) -> {
+            List<Transaction> cardTransactions = new ArrayList<>(cardOffers.size());
+            for (PaymentOfferEntity offer : cardOffers) {
+                cardTransactions.add(buildPendingTransaction(userId, offer, cardNumber));
+            }
+            transactionsByCard.put(cardNumber, cardTransactions);
+            transactions.addAll(cardTransactions);
+        });
+        transactionRepository.saveAll(transactions);
+        return transactionsByCard;
+    }
+
+    private Transaction buildPendingTransaction(UUID userId, PaymentOfferEntity paymentOfferEntity, String cardNumber) {
         BigDecimal amount = paymentOfferEntity.getAmount();
-        BigDecimal finalAmount = feeService.applyTransferFee(amount);
+        CardType cardType = CardType.DEBIT;
+        BigDecimal finalAmount = feeService.applyTransferFee(amount, paymentOfferEntity.getCategory(), cardType);
         BigDecimal fee = finalAmount.subtract(amount).abs();
         BigDecimal signedAmount = paymentOfferEntity.getCategory().applySign(finalAmount);
 
-        Transaction transaction = Transaction.builder()
+        return Transaction.builder()
                 .userId(userId)
                 .offer(paymentOfferEntity)
                 .status(TransactionStatus.PENDING)
-                .cardType(CardType.DEBIT)
+                .cardType(cardType)
                 .cardNumber(cardNumber)
                 .fee(fee)
                 .amount(signedAmount)
                 .createdAt(Instant.now())
                 .build();
-        return transactionRepository.save(transaction);
     }
 
     @Transactional
     public void finishTransactionWithOtp(UUID userId, String offerId) {
-        Transaction pendingTransaction = transactionRepository.findByUserIdAndOfferIdAndStatus(
-                        userId, offerId, TransactionStatus.PENDING)
+        Transaction pendingTransaction = transactionRepository.findByUserIdAndOfferIdAndStatusAndCreatedAtGreaterThanEqual(
+                        userId, offerId, TransactionStatus.PENDING, recentCreatedFrom())
                 .orElseThrow(() -> new TransactionNotFoundException("Pending transaction not found"));
         finishTransaction(pendingTransaction.getId());
     }
 
     @Transactional
     public Transaction finishTransaction(UUID transactionId) {
-        Transaction transaction = getTransaction(transactionId);
+        Transaction transaction = getRecentTransaction(transactionId);
+        Transaction successfulTransaction = confirm(transaction, Instant.now());
+        cardLastUsedRepository.touch(successfulTransaction.getUserId(), successfulTransaction.getCardNumber(), successfulTransaction.getConfirmedAt());
+
+        OutboxEvent outboxEvent = successfulEvent(successfulTransaction);
+        paymentMetrics.stage("outbox_insert", () -> outboxRepository.save(outboxEvent));
+
+        // The hold is captured only once the confirmation has committed; until then the caller can still release it
+        cardCaptureService.enqueue(successfulTransaction.getCardNumber(), List.of(successfulTransaction.getId()));
+
+        return successfulTransaction;
+    }
+
+    // Bulk counterpart of finishTransaction for the pending transactions of one card, captured with a single debit after commit
+    @Transactional
+    public List<Transaction> finishTransactions(String cardNumber, List<UUID> transactionIds) {
+        List<Transaction> transactions = transactionRepository.findAllRecentByIdWithOffer(transactionIds, recentCreatedFrom());
+        if (transactions.size() != transactionIds.size()) {
+            throw new TransactionNotFoundException("Transaction not found");
+        }
+
+        Instant confirmedAt = Instant.now();
+        List<OutboxEvent> outboxEvents = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            outboxEvents.add(successfulEvent(confirm(transaction, confirmedAt)));
+        }
+        cardLastUsedRepository.touch(transactions.get(0).getUserId(), cardNumber, confirmedAt);
+        paymentMetrics.stage("outbox_insert", () -> outboxRepository.saveAll(outboxEvents));
+
+        cardCaptureService.enqueue(cardNumber, transactionIds);
+
+        return transactions;
+    }
+
+    private Transaction confirm(Transaction transaction, Instant confirmedAt) {
         PaymentOfferEntity paymentOfferEntity = transaction.getOffer();
 
         transaction.setStatus(TransactionStatus.CONFIRMED);
-        transaction.setConfirmedAt(Instant.now());
-        paymentOfferEntity.setCompletedAt(Instant.now());
+        transaction.setConfirmedAt(confirmedAt);
+        paymentOfferEntity.setCompletedAt(confirmedAt);
 
         paymentOfferEntityService.save(paymentOfferEntity);
 
         Transaction successfulTransaction = transactionRepository.save(transaction);
+        cardDailyRollupService.recordConfirmed(successfulTransaction);
+        spendCounterService.recordConfirmed(successfulTransaction);
+        return successfulTransaction;
+    }
 
+    private OutboxEvent successfulEvent(Transaction transaction) {
         try {
-            TransactionEvent transactionEvent = transactionMapper.toEvent(successfulTransaction);
-            transactionEvent.setTransactionType(paymentOfferEntity.getCategory().toString());
+            TransactionEvent transactionEvent = transactionMapper.toEvent(transaction);
+            transactionEvent.setTransactionType(transaction.getOffer().getCategory().toString());
 
             String eventPayload = objectMapper.writeValueAsString(transactionEvent);
-            OutboxEvent outboxEvent = OutboxEvent.builder()
+            return OutboxEvent.builder()
                     .eventType(TransactionEventType.TRANSACTION_SUCCESSFUL.toString())
                     .payload(eventPayload)
+                    .cardNumber(transaction.getCardNumber())
+                    .userId(transaction.getUserId())
                     .createdAt(Instant.now())
                     .build();
-            outboxRepository.save(outboxEvent);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize transaction successful event", e);
         }
-
-        return successfulTransaction;
     }
 
     @Transactional
     public void cancelTransaction(UUID transactionId) {
         Transaction transaction = getTransaction(transactionId);
+        TransactionStatus previousStatus = transaction.getStatus();
         transaction.setStatus(TransactionStatus.CANCELLED);
         transaction.setCancelledAt(Instant.now());
         transactionRepository.save(transaction);
+        if (previousStatus == TransactionStatus.CONFIRMED) {
+            cardDailyRollupService.revertConfirmed(transaction);
+            spendCounterService.revertConfirmed(transaction);
+            monthlyStatementService.invalidate(transaction);
+        } else if (previousStatus == TransactionStatus.PENDING) {
+            releaseHoldsAfterCommit(List.of(transactionId));
+        }
 
         paymentOfferEntityService.returnOffer(transaction.getOffer());
 
@@ -139,6 +236,8 @@ public class TransactionService {
             OutboxEvent event = OutboxEvent.builder()
                     .eventType(TransactionEventType.TRANSACTION_CANCELLED.toString())
                     .payload(eventPayload)
+                    .cardNumber(transaction.getCardNumber())
+                    .userId(transaction.getUserId())
                     .createdAt(Instant.now())
                     .build();
             outboxRepository.save(event);
@@ -147,11 +246,74 @@ public class TransactionService {
         }
     }
 
+    // Bulk counterpart of cancelTransaction for the scheduler: one UPDATE and one outbox INSERT per chunk.
+    // Returns the card holds to release and the offers to put back into Redis once the chunk has committed.
+    @Transactional
+    public ExpiredTransactions expirePendingTransactions(int limit) {
+        List<Transaction> expiredTransactions = transactionRepository.expirePendingTransactions(limit);
+        if (expiredTransactions.isEmpty()) {
+            return new ExpiredTransactions(Collections.emptyList(), Collections.emptyList());
+        }
+
+        String[] payloads = new String[expiredTransactions.size()];
+        String[] cardNumbers = new String[expiredTransactions.size()];
+        UUID[] userIds = new UUID[expiredTransactions.size()];
+        List<UUID> transactionIds = new ArrayList<>(expiredTransactions.size());
+        Set<String> offerIds = new HashSet<>();
+        try {
+            for (int i = 0; i < expiredTransactions.size(); i++) {
+                Transaction transaction = expiredTransactions.get(i);
+                payloads[i] = objectMapper.writeValueAsString(transactionMapper.toEvent(transaction));
+                cardNumbers[i] = transaction.getCardNumber();
+                userIds[i] = transaction.getUserId();
+                transactionIds.add(transaction.getId());
+                offerIds.add(transaction.getOffer().getId());
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize transaction cancelled event", e);
+        }
+        outboxRepository.insertAll(TransactionEventType.TRANSACTION_CANCELLED.toString(), payloads, cardNumbers, userIds);
+
+        return new ExpiredTransactions(transactionIds, paymentOfferEntityService.findAllById(offerIds));
+    }
+
+    // Best effort: holds that are never released expire in card-service on their own
+    public void releaseHolds(List<UUID> transactionIds) {
+        try {
+            cardFeignClient.releaseHolds(transactionIds);
+        } catch (Exception e) {
+            log.warn("Failed to release {} card holds, they will expire in card-service: {}", transactionIds.size(), e.getMessage());
+        }
+    }
+
+    private void releaseHoldsAfterCommit(List<UUID> transactionIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseHolds(transactionIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseHolds(transactionIds);
+            }
+        });
+    }
+
+    // Fails a transaction of the running payment, so only the recent partitions are probed
     @Transactional
     public void failTransaction(UUID transactionId) {
-        Transaction transaction = getTransaction(transactionId);
+        failTransaction(getRecentTransaction(transactionId), TransactionEventType.TRANSACTION_FAILED);
+    }
+
+    private void failTransaction(Transaction transaction, TransactionEventType eventType) {
+        TransactionStatus previousStatus = transaction.getStatus();
         transaction.setStatus(TransactionStatus.FAILED);
         transactionRepository.save(transaction);
+        if (previousStatus == TransactionStatus.CONFIRMED) {
+            cardDailyRollupService.revertConfirmed(transaction);
+            spendCounterService.revertConfirmed(transaction);
+            monthlyStatementService.invalidate(transaction);
+        }
 
         paymentOfferEntityService.returnOffer(transaction.getOffer());
 
@@ -159,8 +321,10 @@ public class TransactionService {
             TransactionEvent failedTransaction = transactionMapper.toEvent(transaction);
             String eventPayload = objectMapper.writeValueAsString(failedTransaction);
             OutboxEvent event = OutboxEvent.builder()
-                    .eventType(TransactionEventType.TRANSACTION_FAILED.toString())
+                    .eventType(eventType.toString())
                     .payload(eventPayload)
+                    .cardNumber(transaction.getCardNumber())
+                    .userId(transaction.getUserId())
                     .createdAt(Instant.now())
                     .build();
             outboxRepository.save(event);
@@ -169,6 +333,17 @@ public class TransactionService {
         }
     }
 
+    // card-service refused the queued capture because the hold was released or has expired: nothing was debited,
+    // so the confirmation is undone, and the capture is dropped in the same transaction. This is an intended outcome:
+    // a capture that is still queued when its hold expires (card-service unreachable for longer than card.holds.ttl)
+    // reverses a payment the customer was already told had succeeded. It is published as TRANSACTION_REVERSED, not
+    // TRANSACTION_FAILED, so consumers can tell it apart from a payment that never went through.
+    @Transactional
+    public void failUncapturedTransaction(UUID transactionId) {
+        failTransaction(getTransaction(transactionId), TransactionEventType.TRANSACTION_REVERSED);
+        cardCaptureService.discard(transactionId);
+    }
+
     @Transactional(readOnly = true)
     public void validateUserCardAccessWithDate(String cardNumber, UUID userId, LocalDate from, LocalDate to) {
         localDateValidator.validate(cardNumber, from, to);
@@ -176,46 +351,62 @@ public class TransactionService {
         paymentValidator.validateCardOwnership(cardInfoDto, userId);
     }
 
+    // Only closed periods have a version: anything still open can change without the query noticing in time
     @Transactional(readOnly = true)
-    public PeriodGroupedTransactionsDto getTransactionsByPeriod(String cardNumber, LocalDate from, LocalDate to, int page) {
+    public Optional<PeriodVersion> getClosedPeriodVersion(String cardNumber, LocalDate from, LocalDate to) {
+        if (!to.isBefore(dateConverter.toLocalDate(Instant.now()))) {
+            return Optional.empty();
+        }
         Instant start = dateConverter.toStartOfDayInstant(from);
         Instant end = dateConverter.toEndOfDayInstant(to);
+        return Optional.of(transactionRepository.findPeriodVersion(cardNumber, start, end, createdFrom(start)));
+    }
 
-        List<Transaction> allTransactions = transactionRepository.findAllByCardNumberAndConfirmedAtBetween(cardNumber, start, end);
+    @Transactional(readOnly = true)
+    public PeriodGroupedTransactionsDto getTransactionsByPeriod(String cardNumber, LocalDate from, LocalDate to, String cursor) {
+        Instant start = dateConverter.toStartOfDayInstant(from);
+        Instant end = dateConverter.toEndOfDayInstant(to);
 
-        if (allTransactions.isEmpty()) {
-            return new PeriodGroupedTransactionsDto(BigDecimal.ZERO, BigDecimal.ZERO, Collections.emptyList());
-        }
+        Optional<MonthlyStatementDocument> statement = monthlyStatementService.findStatement(cardNumber, from, to);
+        TransactionAggregationEngine transactionAggregator = aggregatePeriod(statement, cardNumber, from, to, start, end);
 
-        List<Transaction> paginatedTransactions = findTransactionsByCardInPeriod(cardNumber, start, end, page);
+        if (transactionAggregator.isEmpty()) {
+            return new PeriodGroupedTransactionsDto(BigDecimal.ZERO, BigDecimal.ZERO, Collections.emptyList(), null);
+        }
 
-        TransactionAggregator transactionAggregator = new TransactionAggregator(allTransactions, dateConverter);
+        List<TransactionRow> paginatedTransactions = statement.isPresent() && cursor == null
+                ? statement.get().transactions()
+                : findTransactionsByCardInPeriod(cardNumber, start, end, cursor);
 
         return new PeriodGroupedTransactionsDto(
                 transactionAggregator.getTotalSpending(),
                 transactionAggregator.getTotalIncome(),
-                buildDailyTransactions(paginatedTransactions, transactionAggregator.getDailyTotals())
+                buildDailyTransactions(firstPage(paginatedTransactions), transactionAggregator.getDailyTotals()),
+                nextCursor(paginatedTransactions)
         );
     }
 
     @Transactional(readOnly = true)
-    public PeriodGroupedExpenseDto getExpenseTransactionsByPeriod(String cardNumber, LocalDate from, LocalDate to, int page) {
+    public PeriodGroupedExpenseDto getExpenseTransactionsByPeriod(String cardNumber, LocalDate from, LocalDate to, String cursor) {
         Instant start = dateConverter.toStartOfDayInstant(from);
         Instant end = dateConverter.toEndOfDayInstant(to);
 
-        List<Transaction> allTransactions = transactionRepository.findAllByCardNumberAndConfirmedAtBetween(cardNumber, start, end);
+        Optional<MonthlyStatementDocument> statement = monthlyStatementService.findStatement(cardNumber, from, to);
+        TransactionAggregationEngine transactionAggregator = aggregatePeriod(statement, cardNumber, from, to, start, end);
 
-        if (allTransactions.isEmpty()) {
-            return new PeriodGroupedExpenseDto(BigDecimal.ZERO, Collections.emptyList(), Collections.emptyList());
+        if (transactionAggregator.isEmpty()) {
+            return new PeriodGroupedExpenseDto(BigDecimal.ZERO, Collections.emptyList(), Collections.emptyList(), null);
         }
 
-        List<Transaction> paginatedExpenses = findExpenseTransactionsByCardInPeriod(cardNumber, start, end, page);
-        TransactionAggregator transactionAggregator = new TransactionAggregator(allTransactions, dateConverter);
+        List<TransactionRow> paginatedExpenses = statement.isPresent() && cursor == null
+                ? statement.get().expenses()
+                : findExpenseTransactionsByCardInPeriod(cardNumber, start, end, cursor);
 
         return new PeriodGroupedExpenseDto(
                 transactionAggregator.getTotalSpending(),
                 transactionAggregator.getCategorySpending(),
-                buildDailyTransactions(paginatedExpenses, transactionAggregator.getDailySpendingTotals())
+                buildDailyTransactions(firstPage(paginatedExpenses), transactionAggregator.getDailySpendingTotals()),
+                nextCursor(paginatedExpenses)
         );
     }
 
@@ -224,13 +415,13 @@ public class TransactionService {
         Instant start = dateConverter.toStartOfDayInstant(from);
         Instant end = dateConverter.toEndOfDayInstant(to);
 
-        List<Transaction> allTransactions = transactionRepository.findAllByCardNumberAndConfirmedAtBetween(cardNumber, start, end);
+        TransactionAggregationEngine transactionAggregator = aggregatePeriod(
+                monthlyStatementService.findStatement(cardNumber, from, to), cardNumber, from, to, start, end);
 
-        if (allTransactions.isEmpty()) {
+        if (transactionAggregator.isEmpty()) {
             throw new TransactionNotFoundException("No transactions found for the specified card and date range");
         }
 
-        TransactionAggregator transactionAggregator = new TransactionAggregator(allTransactions, dateConverter);
         return analyticsFeignClient.analyzeExpenses(new CategorySpendingReportRequest(
                 transactionAggregator.getCategorySpending(),
                 cardNumber,
@@ -240,82 +431,138 @@ public class TransactionService {
     }
 
     @Transactional(readOnly = true)
-    public PeriodGroupedIncomeDto getIncomeTransactionsByPeriod(String cardNumber, LocalDate from, LocalDate to, int page) {
+    public PeriodGroupedIncomeDto getIncomeTransactionsByPeriod(String cardNumber, LocalDate from, LocalDate to, String cursor) {
         Instant start = dateConverter.toStartOfDayInstant(from);
         Instant end = dateConverter.toEndOfDayInstant(to);
 
-        List<Transaction> allTransactions = transactionRepository.findAllByCardNumberAndConfirmedAtBetween(cardNumber, start, end);
+        Optional<MonthlyStatementDocument> statement = monthlyStatementService.findStatement(cardNumber, from, to);
+        TransactionAggregationEngine transactionAggregator = aggregatePeriod(statement, cardNumber, from, to, start, end);
 
-        if (allTransactions.isEmpty()) {
-            return new PeriodGroupedIncomeDto(BigDecimal.ZERO, Collections.emptyList(), Collections.emptyList());
+        if (transactionAggregator.isEmpty()) {
+            return new PeriodGroupedIncomeDto(BigDecimal.ZERO, Collections.emptyList(), Collections.emptyList(), null);
         }
 
-        List<Transaction> paginatedIncome = findIncomeTransactionsByCardInPeriod(cardNumber, start, end, page);
-
-        TransactionAggregator transactionAggregator = new TransactionAggregator(allTransactions, dateConverter);
+        List<TransactionRow> paginatedIncome = statement.isPresent() && cursor == null
+                ? statement.get().income()
+                : findIncomeTransactionsByCardInPeriod(cardNumber, start, end, cursor);
 
         return new PeriodGroupedIncomeDto(
                 transactionAggregator.getTotalIncome(),
                 transactionAggregator.getCategoryIncome(),
-                buildDailyTransactions(paginatedIncome, transactionAggregator.getDailyIncomeTotals())
+                buildDailyTransactions(firstPage(paginatedIncome), transactionAggregator.getDailyIncomeTotals()),
+                nextCursor(paginatedIncome)
         );
     }
 
-    private List<DailyTransactionDto> buildDailyTransactions(List<Transaction> transactions, Map<LocalDate, BigDecimal> dailyTotals) {
+    // A stored month statement makes the first page a single row read; later pages still query transaction_
+    private TransactionAggregationEngine aggregatePeriod(Optional<MonthlyStatementDocument> statement, String cardNumber,
+                                                         LocalDate from, LocalDate to, Instant start, Instant end) {
+        if (statement.isPresent()) {
+            return TransactionAggregationEngine.ofDailyCategoryTotals(statement.get().totals(), from, to);
+        }
+        List<DailyCategoryTotal> totals = rollupReadEnabled
+                ? cardDailyRollupService.findDailyCategoryTotals(cardNumber, from, to)
+                : transactionRepository.sumByDayAndCategory(cardNumber, start, end, createdFrom(start));
+        return TransactionAggregationEngine.ofDailyCategoryTotals(totals, from, to);
+    }
+
+    private List<DailyTransactionDto> buildDailyTransactions(List<TransactionRow> transactions, Map<LocalDate, BigDecimal> dailyTotals) {
         return transactions.stream()
                 .collect(Collectors.groupingBy(
-                        t -> dateConverter.toLocalDate(t.getConfirmedAt())))
+                        t -> dateConverter.toLocalDate(t.confirmedAt())))
                 .entrySet().stream()
                 .map(entry -> new DailyTransactionDto(
                         entry.getKey(),
                         dailyTotals.getOrDefault(entry.getKey(), BigDecimal.ZERO),
                         mapToTransactionDtos(entry.getValue())
                 ))
-                .sorted(Comparator.comparing(DailyTransactionDto::date))
+                .sorted(Comparator.comparing(DailyTransactionDto::date).reversed())
                 .toList();
     }
 
-    private List<TransactionDto> mapToTransactionDtos(List<Transaction> transactions) {
+    private List<TransactionDto> mapToTransactionDtos(List<TransactionRow> transactions) {
         return transactions.stream()
-                .map(t -> new TransactionDto(
-                        t.getOffer().getVendor(),
-                        t.getOffer().getCategory(),
-                        t.getAmount(),
-                        t.getCardNumber(),
-                        t.getConfirmedAt()
-                ))
+                .map(transactionMapper::toDto)
                 .toList();
     }
 
-    private List<Transaction> findTransactionsByCardInPeriod(String cardNumber, Instant start, Instant end, int page) {
-        Pageable pageable = PageRequest.of(page, transactionsPerPage);
-        return transactionRepository.findAllByCardNumberAndConfirmedAtBetween(cardNumber, start, end, pageable);
+    // Pages are read newest first and one row past the page size, so the extra row tells us whether a next page exists
+    private List<TransactionRow> findTransactionsByCardInPeriod(String cardNumber, Instant start, Instant end, String cursor) {
+        if (cursor == null) {
+            return transactionRepository.findFirstPageByCardInPeriod(cardNumber, start, end, createdFrom(start), transactionsPerPage + 1);
+        }
+        TransactionCursor position = TransactionCursor.decode(cursor);
+        return transactionRepository.findPageByCardInPeriodAfter(
+                cardNumber, start, end, createdFrom(start), position.confirmedAt(), position.id(), transactionsPerPage + 1);
     }
 
-    private List<Transaction> findExpenseTransactionsByCardInPeriod(String cardNumber, Instant start, Instant end, int page) {
-        Pageable pageable = PageRequest.of(page, transactionsPerPage);
-        return transactionRepository.findAllByCardNumberAndConfirmedAtBetweenAndAmountLessThan(cardNumber, start, end, BigDecimal.ZERO, pageable);
+    private List<TransactionRow> findExpenseTransactionsByCardInPeriod(String cardNumber, Instant start, Instant end, String cursor) {
+        if (cursor == null) {
+            return transactionRepository.findFirstExpensePageByCardInPeriod(cardNumber, start, end, createdFrom(start), transactionsPerPage + 1);
+        }
+        TransactionCursor position = TransactionCursor.decode(cursor);
+        return transactionRepository.findExpensePageByCardInPeriodAfter(
+                cardNumber, start, end, createdFrom(start), position.confirmedAt(), position.id(), transactionsPerPage + 1);
     }
 
-    private List<Transaction> findIncomeTransactionsByCardInPeriod(String cardNumber, Instant start, Instant end, int page) {
-        Pageable pageable = PageRequest.of(page, transactionsPerPage);
-        return transactionRepository.findAllByCardNumberAndConfirmedAtBetweenAndAmountGreaterThan(cardNumber, start, end, BigDecimal.ZERO, pageable);
+    private List<TransactionRow> findIncomeTransactionsByCardInPeriod(String cardNumber, Instant start, Instant end, String cursor) {
+        if (cursor == null) {
+            return transactionRepository.findFirstIncomePageByCardInPeriod(cardNumber, start, end, createdFrom(start), transactionsPerPage + 1);
+        }
+        TransactionCursor position = TransactionCursor.decode(cursor);
+        return transactionRepository.findIncomePageByCardInPeriodAfter(
+                cardNumber, start, end, createdFrom(start), position.confirmedAt(), position.id(), transactionsPerPage + 1);
+    }
+
+    // A transaction is confirmed shortly after it is created, so this lower bound on created_at lets
+    // PostgreSQL skip the monthly partitions that can't hold anything confirmed in the period
+    private Instant createdFrom(Instant start) {
+        return start.minus(maxConfirmationLag);
+    }
+
+    // Pending transactions expire after minutes, so anything the payment flow still works on was created after this
+    private Instant recentCreatedFrom() {
+        return createdFrom(Instant.now());
+    }
+
+    private List<TransactionRow> firstPage(List<TransactionRow> transactions) {
+        return transactions.size() > transactionsPerPage ? transactions.subList(0, transactionsPerPage) : transactions;
+    }
+
+    private String nextCursor(List<TransactionRow> transactions) {
+        if (transactions.size() <= transactionsPerPage) {
+            return null;
+        }
+        return TransactionCursor.of(transactions.get(transactionsPerPage - 1)).encode();
     }
 
     @Transactional(readOnly = true)
     public List<TransactionDto> getRecentTransactions(String cardNumber, int count) {
-        List<Transaction> transactions = transactionRepository.findByCardNumberOrderByConfirmedAtDesc(cardNumber, Limit.of(count));
+        List<TransactionRow> transactions = transactionRepository.findRecentByCardNumber(cardNumber, Limit.of(count));
         return transactions.stream()
                 .map(transactionMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    // Every requested card gets an entry, in request order, even when it has no transactions
+    @Transactional(readOnly = true)
+    public Map<String, List<TransactionDto>> getRecentTransactions(List<String> cardNumbers, int count) {
+        Map<String, List<TransactionDto>> recent = new LinkedHashMap<>();
+        cardNumbers.forEach(cardNumber -> recent.put(cardNumber, new ArrayList<>()));
+
+        List<RecentTransactionView> transactions = transactionRepository.findRecentByCardNumbers(
+                recent.keySet().toArray(String[]::new), count);
+        for (RecentTransactionView transaction : transactions) {
+            recent.get(transaction.getCardNumber()).add(transactionMapper.toDto(transaction));
+        }
+        return recent;
+    }
+
     @Transactional(readOnly = true)
     public List<String> lastUsedCardNumbers(UUID userId, int offset, int limit) {
-        Pageable pageable = PageRequest.of(offset / limit, limit);
-        return transactionRepository.findAllByUserIdOrderByConfirmedAtDesc(userId, pageable).stream()
-                .map(Transaction::getCardNumber)
-                .distinct()
-                .toList();
+        if (cardLastUsedReadEnabled) {
+            return cardLastUsedRepository.findCardNumbers(userId, offset, limit);
+        }
+        return transactionRepository.findLastUsedCardNumbers(userId, offset, limit);
     }
 }
\ No newline at end of file
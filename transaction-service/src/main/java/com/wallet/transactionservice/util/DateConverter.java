@@ -4,17 +4,22 @@ import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.time.ZoneOffset;
 
 @Component
 public class DateConverter {
-    private final ZoneId TIMESTAMP_ZONE = ZoneOffset.UTC;
+    private static final long SECONDS_PER_DAY = 86_400;
+    private final ZoneOffset TIMESTAMP_ZONE = ZoneOffset.UTC;
 
     public LocalDate toLocalDate(Instant timestamp) {
         return timestamp.atZone(TIMESTAMP_ZONE).toLocalDate();
     }
 
+    // Same day as toLocalDate, but without allocating a ZonedDateTime per call
+    public long toEpochDay(Instant timestamp) {
+        return Math.floorDiv(timestamp.getEpochSecond() + TIMESTAMP_ZONE.getTotalSeconds(), SECONDS_PER_DAY);
+    }
+
     public Instant toStartOfDayInstant(LocalDate date) {
         return date.atStartOfDay(TIMESTAMP_ZONE).toInstant();
     }
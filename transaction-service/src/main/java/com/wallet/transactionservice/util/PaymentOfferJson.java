@@ -0,0 +1,26 @@
+package com.wallet.transactionservice.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.wallet.transactionservice.dto.PaymentOffer;
+
+import java.time.Instant;
+
+// Wire format of the offers that the transaction generator puts into Redis (suggestedAt as epoch seconds)
+public final class PaymentOfferJson {
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Instant.class, new InstantDeserializer())
+            .registerTypeAdapter(Instant.class, new InstantSerializer())
+            .create();
+
+    private PaymentOfferJson() {
+    }
+
+    public static PaymentOffer fromJson(String json) {
+        return GSON.fromJson(json, PaymentOffer.class);
+    }
+
+    public static String toJson(PaymentOffer offer) {
+        return GSON.toJson(offer);
+    }
+}
@@ -4,14 +4,18 @@ import com.wallet.transactionservice.dto.CardDetailsDto;
 import com.wallet.transactionservice.dto.CardInfoDto;
 import com.wallet.transactionservice.dto.PaymentOffer;
 import com.wallet.transactionservice.dto.PaymentRequestDto;
+import com.wallet.transactionservice.dto.SpendTotals;
 import com.wallet.transactionservice.enums.CardStatus;
 import com.wallet.transactionservice.exception.CardAccessDeniedException;
+import com.wallet.transactionservice.exception.CardLimitExceededException;
 import com.wallet.transactionservice.exception.CardNotFoundException;
 import com.wallet.transactionservice.exception.InsufficientBalanceException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -21,12 +25,26 @@ import java.util.UUID;
 public class PaymentValidator {
     private final CardDataValidator cardDataValidator;
 
+    @Value("${transaction.spend-limits.payments-per-minute}")
+    private long paymentsPerMinute;
+
+    @Value("${transaction.spend-limits.daily-amount}")
+    private BigDecimal dailyAmount;
+
+    @Value("${transaction.spend-limits.monthly-amount}")
+    private BigDecimal monthlyAmount;
+
     public void validatePayment(PaymentRequestDto paymentRequest, CardInfoDto cardInfoDto, UUID userId, PaymentOffer paymentOffer) {
+        validateCard(paymentRequest, cardInfoDto, userId);
+        validateBalance(cardInfoDto, paymentOffer.amount().value());
+    }
+
+    // Everything but the balance, which bulk payments check against the running total of the card
+    public void validateCard(PaymentRequestDto paymentRequest, CardInfoDto cardInfoDto, UUID userId) {
         validateCardExists(cardInfoDto);
         validateCardOwnership(cardInfoDto, userId);
         validateCardCredentials(paymentRequest, cardInfoDto);
         validateCardStatus(cardInfoDto);
-        validateBalance(cardInfoDto, paymentOffer);
     }
 
     private void validateCardExists(CardInfoDto cardInfoDto) {
@@ -72,9 +90,22 @@ public class PaymentValidator {
         }
     }
 
-    private void validateBalance(CardInfoDto cardInfoDto, PaymentOffer paymentOffer) {
-        if (cardInfoDto.getCardDto() == null || cardInfoDto.getCardDto().balance().compareTo(paymentOffer.amount().value()) < 0) {
+    public void validateBalance(CardInfoDto cardInfoDto, BigDecimal requiredAmount) {
+        if (cardInfoDto.getCardDto() == null || cardInfoDto.getCardDto().balance().compareTo(requiredAmount) < 0) {
             throw new InsufficientBalanceException("Insufficient balance");
         }
     }
+
+    // Checks the rolling spend of the card with the given payments added; a limit of 0 is not enforced
+    public void validateSpendLimits(SpendTotals spendTotals, int payments, BigDecimal amount) {
+        if (paymentsPerMinute > 0 && spendTotals.minuteCount() + payments > paymentsPerMinute) {
+            throw new CardLimitExceededException("Too many payments with this card, try again in a minute");
+        }
+        if (dailyAmount.signum() > 0 && spendTotals.dayAmount().add(amount).compareTo(dailyAmount) > 0) {
+            throw new CardLimitExceededException("Daily spending limit of the card exceeded");
+        }
+        if (monthlyAmount.signum() > 0 && spendTotals.monthAmount().add(amount).compareTo(monthlyAmount) > 0) {
+            throw new CardLimitExceededException("Monthly spending limit of the card exceeded");
+        }
+    }
 }
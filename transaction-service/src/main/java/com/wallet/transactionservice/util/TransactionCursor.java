@@ -0,0 +1,38 @@
+package com.wallet.transactionservice.util;
+
+import com.wallet.transactionservice.dto.TransactionRow;
+import com.wallet.transactionservice.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+// Opaque keyset position (confirmed_at, id) of the last transaction on a page
+public record TransactionCursor(Instant confirmedAt, UUID id) {
+    private static final String SEPARATOR = ":";
+
+    public static TransactionCursor of(TransactionRow transaction) {
+        return new TransactionCursor(transaction.confirmedAt(), transaction.id());
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length != 3) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            Instant confirmedAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new TransactionCursor(confirmedAt, UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = confirmedAt.getEpochSecond() + SEPARATOR + confirmedAt.getNano() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
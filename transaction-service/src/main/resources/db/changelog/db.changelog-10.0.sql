@@ -0,0 +1,45 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- A NULL category or card_type matches any value; the most specific (category, card_type) tier set wins.
+-- A tier applies from min_amount (inclusive) up to the next tier's min_amount; amounts below the first tier pay no fee.
+CREATE TABLE IF NOT EXISTS fee_tier (
+    id BIGSERIAL PRIMARY KEY,
+    category VARCHAR(50),
+    card_type VARCHAR(50),
+    min_amount NUMERIC(19, 4) NOT NULL CHECK (min_amount >= 0),
+    rate NUMERIC(9, 6) NOT NULL DEFAULT 0 CHECK (rate >= 0),
+    fixed_fee NUMERIC(19, 4) NOT NULL DEFAULT 0 CHECK (fixed_fee >= 0),
+    max_fee NUMERIC(19, 4) CHECK (max_fee >= 0)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_fee_tier_scope_min_amount
+    ON fee_tier (COALESCE(category, ''), COALESCE(card_type, ''), min_amount);
+
+--changeset sromanov:2
+-- Bumped by every change to fee_tier, so FeeService only recompiles the schedule when it actually changed
+CREATE TABLE IF NOT EXISTS fee_schedule_version (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    version BIGINT NOT NULL
+);
+
+INSERT INTO fee_schedule_version (id, version) VALUES (TRUE, 0);
+
+--changeset sromanov:3 splitStatements:false
+CREATE OR REPLACE FUNCTION bump_fee_schedule_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE fee_schedule_version SET version = version + 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset sromanov:4
+CREATE TRIGGER fee_tier_changed
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON fee_tier
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_fee_schedule_version();
+
+--changeset sromanov:5
+-- The former transaction.commission settings: 1% from 500000, capped at 1000000
+INSERT INTO fee_tier (category, card_type, min_amount, rate, fixed_fee, max_fee)
+VALUES (NULL, NULL, 500000, 0.01, 0, 1000000);
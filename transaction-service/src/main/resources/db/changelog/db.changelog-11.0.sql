@@ -0,0 +1,23 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+CREATE INDEX IF NOT EXISTS idx_tx_user_confirmed ON transaction_ (user_id, confirmed_at DESC);
+
+--changeset sromanov:2
+-- One row per (user, card): when the card was last used for a confirmed transaction
+CREATE TABLE IF NOT EXISTS card_last_used (
+    user_id UUID NOT NULL,
+    card_number VARCHAR NOT NULL,
+    last_used_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (user_id, card_number)
+);
+
+CREATE INDEX IF NOT EXISTS idx_card_last_used_user_ts ON card_last_used (user_id, last_used_at DESC, card_number);
+
+--changeset sromanov:3
+INSERT INTO card_last_used (user_id, card_number, last_used_at)
+SELECT user_id, card_number, MAX(confirmed_at)
+FROM transaction_
+WHERE status = 'CONFIRMED'
+GROUP BY user_id, card_number
+ON CONFLICT (user_id, card_number) DO NOTHING;
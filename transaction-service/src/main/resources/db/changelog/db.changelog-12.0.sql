@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Hibernate's pooled optimizer reserves allocationSize ids per nextval, so the increments must match the entities
+ALTER TABLE outbox ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE outbox_id_seq AS BIGINT INCREMENT BY 50;
+
+--changeset sromanov:2
+ALTER SEQUENCE fee_tier_id_seq INCREMENT BY 50;
@@ -0,0 +1,8 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Same key as idx_tx_card_ts_id; the included columns let the period version query run as an index-only scan
+CREATE INDEX IF NOT EXISTS idx_tx_card_ts_id_cover ON transaction_ (card_number, confirmed_at DESC, id DESC) INCLUDE (status, created_at);
+
+--changeset sromanov:2
+DROP INDEX IF EXISTS idx_tx_card_ts_id;
@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Precomputed statement of a card for one closed UTC month (MonthlyStatementDocument as JSON).
+-- A stale row is queued for (re)computation and is not served; its document is NULL until the first run.
+CREATE TABLE IF NOT EXISTS card_monthly_statement (
+    card_number VARCHAR NOT NULL,
+    month DATE NOT NULL,
+    stale BOOLEAN NOT NULL DEFAULT TRUE,
+    document TEXT,
+    computed_at TIMESTAMP WITH TIME ZONE,
+    PRIMARY KEY (card_number, month)
+);
+
+CREATE INDEX IF NOT EXISTS idx_card_monthly_statement_stale ON card_monthly_statement (month) WHERE stale;
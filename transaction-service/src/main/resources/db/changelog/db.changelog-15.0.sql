@@ -0,0 +1,6 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Record key candidates for the relay (transaction.outbox.key); NULL for rows written before this change
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS card_number VARCHAR;
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS user_id UUID;
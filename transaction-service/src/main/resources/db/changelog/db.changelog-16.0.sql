@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Holds of confirmed transactions that still have to be captured in card-service. Rows are written in the
+-- confirming transaction and deleted once card-service has acknowledged the capture.
+CREATE TABLE IF NOT EXISTS card_capture (
+    transaction_id UUID PRIMARY KEY,
+    card_number VARCHAR NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    attempts INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_card_capture_created_at ON card_capture (created_at);
@@ -0,0 +1,5 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- The period pages now list CONFIRMED transactions only; stored statements are rebuilt by the recompute sweep
+UPDATE card_monthly_statement SET stale = TRUE WHERE NOT stale;
@@ -0,0 +1,9 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+-- Page size (transaction.per-page) the stored first pages were read with. Statements of another page size are not
+-- served and are marked stale on startup, so a changed per-page rebuilds them instead of serving them live for good.
+ALTER TABLE card_monthly_statement ADD COLUMN IF NOT EXISTS page_size INTEGER;
+
+UPDATE card_monthly_statement SET page_size = CAST(CAST(document AS JSONB) ->> 'pageSize' AS INTEGER)
+WHERE document IS NOT NULL;
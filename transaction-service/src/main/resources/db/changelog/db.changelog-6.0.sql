@@ -0,0 +1,7 @@
+--liquibase formatted sql
+
+--changeset sromanov:1 runInTransaction:false
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tx_card_ts_id ON transaction_ (card_number, confirmed_at DESC, id DESC);
+
+--changeset sromanov:2 runInTransaction:false
+DROP INDEX CONCURRENTLY IF EXISTS idx_tx_card_ts;
@@ -0,0 +1,11 @@
+--liquibase formatted sql
+
+--changeset sromanov:1
+CREATE TABLE IF NOT EXISTS card_daily_rollup (
+    card_number VARCHAR NOT NULL,
+    day DATE NOT NULL,
+    category VARCHAR(50) NOT NULL,
+    amount NUMERIC(19, 4) NOT NULL DEFAULT 0,
+    transaction_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (card_number, day, category)
+);
@@ -0,0 +1,15 @@
+--liquibase formatted sql
+
+--changeset sromanov:1 splitStatements:false
+CREATE OR REPLACE FUNCTION notify_outbox_event() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('outbox_event', '');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset sromanov:2
+CREATE TRIGGER outbox_event_inserted
+    AFTER INSERT ON outbox
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION notify_outbox_event();
@@ -0,0 +1,103 @@
+--liquibase formatted sql
+
+--changeset sromanov:1 splitStatements:false
+-- Creates the missing monthly partitions transaction_YYYY_MM (UTC months) covering first_month..last_month
+CREATE OR REPLACE FUNCTION transaction_ensure_partitions(first_month DATE, last_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    partition_month DATE := date_trunc('month', first_month)::DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('transaction_partitions'));
+    WHILE partition_month <= last_month LOOP
+        partition_name := 'transaction_' || to_char(partition_month, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF transaction_ FOR VALUES FROM (%L) TO (%L)',
+                    partition_name,
+                    partition_month::TIMESTAMP AT TIME ZONE 'UTC',
+                    (partition_month + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC');
+            created := created + 1;
+        END IF;
+        partition_month := (partition_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+--changeset sromanov:2
+CREATE SCHEMA IF NOT EXISTS transaction_archive;
+
+--changeset sromanov:3
+--comment: Needs a maintenance window. The copy runs as one transaction and from the rename on transaction_ is unavailable until it commits, so stop transaction-service before applying it. The copy is one sequential INSERT ... SELECT plus two index builds, roughly a minute per 10 million rows.
+ALTER TABLE transaction_ RENAME TO transaction_unpartitioned;
+ALTER INDEX transaction__pkey RENAME TO transaction_unpartitioned_pkey;
+ALTER INDEX idx_tx_status_ts RENAME TO idx_tx_unpartitioned_status_ts;
+ALTER INDEX idx_tx_card_ts_id RENAME TO idx_tx_unpartitioned_card_ts_id;
+
+-- The partition key has to be part of the primary key; ids stay random UUIDs
+CREATE TABLE transaction_ (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    offer_id VARCHAR(255) NOT NULL,
+    "status" VARCHAR(50) NOT NULL,
+    card_type VARCHAR(50),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    confirmed_at TIMESTAMP WITH TIME ZONE,
+    cancelled_at TIMESTAMP WITH TIME ZONE,
+    card_number VARCHAR NOT NULL,
+    amount NUMERIC(19, 4) NOT NULL,
+    fee NUMERIC(19, 4) NOT NULL,
+    CONSTRAINT transaction__pkey PRIMARY KEY (id, created_at),
+    CONSTRAINT fk_transaction_offer FOREIGN KEY (offer_id) REFERENCES payment_offer(id) ON DELETE RESTRICT ON UPDATE CASCADE
+) PARTITION BY RANGE (created_at);
+
+SELECT transaction_ensure_partitions(
+        COALESCE((SELECT MIN(created_at) AT TIME ZONE 'UTC' FROM transaction_unpartitioned), NOW() AT TIME ZONE 'UTC')::DATE,
+        ((NOW() AT TIME ZONE 'UTC') + INTERVAL '3 months')::DATE);
+
+INSERT INTO transaction_ (id, user_id, offer_id, "status", card_type, created_at, confirmed_at, cancelled_at, card_number, amount, fee)
+SELECT id, user_id, offer_id, "status", card_type, created_at, confirmed_at, cancelled_at, card_number, amount, fee
+FROM transaction_unpartitioned;
+
+CREATE INDEX idx_tx_status_ts ON transaction_ (status, created_at DESC);
+CREATE INDEX idx_tx_card_ts_id ON transaction_ (card_number, confirmed_at DESC, id DESC);
+
+DROP TABLE transaction_unpartitioned;
+
+--changeset sromanov:4 splitStatements:false
+-- Rows outside the monthly partitions land in transaction_default instead of failing the insert. A month can only be
+-- created while the default partition holds none of its rows, so transaction_ensure_partitions moves them into the
+-- new month first.
+CREATE TABLE IF NOT EXISTS transaction_default PARTITION OF transaction_ DEFAULT;
+
+CREATE OR REPLACE FUNCTION transaction_ensure_partitions(first_month DATE, last_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    partition_month DATE := date_trunc('month', first_month)::DATE;
+    partition_name TEXT;
+    range_start TIMESTAMP WITH TIME ZONE;
+    range_end TIMESTAMP WITH TIME ZONE;
+    created INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('transaction_partitions'));
+    WHILE partition_month <= last_month LOOP
+        partition_name := 'transaction_' || to_char(partition_month, 'YYYY_MM');
+        range_start := partition_month::TIMESTAMP AT TIME ZONE 'UTC';
+        range_end := (partition_month + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC';
+        IF to_regclass(partition_name) IS NULL THEN
+            IF EXISTS (SELECT 1 FROM transaction_default WHERE created_at >= range_start AND created_at < range_end) THEN
+                EXECUTE format('CREATE TABLE %I (LIKE transaction_ INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+                EXECUTE format('WITH moved AS (DELETE FROM transaction_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                        'INSERT INTO %I SELECT * FROM moved', range_start, range_end, partition_name);
+                EXECUTE format('ALTER TABLE transaction_ ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, range_start, range_end);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF transaction_ FOR VALUES FROM (%L) TO (%L)',
+                        partition_name, range_start, range_end);
+            END IF;
+            created := created + 1;
+        END IF;
+        partition_month := (partition_month + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,182 @@
+package com.wallet.transactionservice.repository;
+
+import com.wallet.transactionservice.dto.RecentTransactionView;
+import com.wallet.transactionservice.dto.TransactionRow;
+import com.wallet.transactionservice.entity.PaymentOfferEntity;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.Currency;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.enums.TransactionStatus;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The listing queries read the offer fields through a join: one statement per page, however many rows it holds
+// Opt-in: runs only when POSTGRES_HOST points at a PostgreSQL (the POSTGRES_* variables of application.yml), since the
+// partitioned Liquibase schema needs PostgreSQL and the build provides none; a plain mvn test skips it.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "POSTGRES_HOST", matches = ".+")
+class TransactionListingStatementsTest {
+    private static final String CARD_NUMBER = "4000000000000001";
+    private static final String OTHER_CARD_NUMBER = "4000000000000002";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PaymentOfferEntityRepository paymentOfferEntityRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Instant start;
+    private Instant end;
+    private Instant createdFrom;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        Instant now = Instant.now();
+        start = now.minus(Duration.ofDays(1));
+        end = now.plus(Duration.ofDays(1));
+        createdFrom = start.minus(Duration.ofDays(1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 40})
+    void firstPageIsOneStatement(int transactions) {
+        saveConfirmed(CARD_NUMBER, transactions);
+
+        assertOneStatement(() -> transactionRepository.findFirstPageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 50), transactions);
+        assertOneStatement(() -> transactionRepository.findFirstExpensePageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 50), transactions);
+        assertOneStatement(() -> transactionRepository.findFirstIncomePageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 50), 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 10, 40})
+    void nextPageIsOneStatement(int transactions) {
+        saveConfirmed(CARD_NUMBER, transactions);
+        TransactionRow first = transactionRepository.findFirstPageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 1).get(0);
+
+        assertOneStatement(() -> transactionRepository.findPageByCardInPeriodAfter(
+                CARD_NUMBER, start, end, createdFrom, first.confirmedAt(), first.id(), 50), transactions - 1);
+        assertOneStatement(() -> transactionRepository.findExpensePageByCardInPeriodAfter(
+                CARD_NUMBER, start, end, createdFrom, first.confirmedAt(), first.id(), 50), transactions - 1);
+        assertOneStatement(() -> transactionRepository.findIncomePageByCardInPeriodAfter(
+                CARD_NUMBER, start, end, createdFrom, first.confirmedAt(), first.id(), 50), 0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 40})
+    void recentTransactionsAreOneStatement(int transactions) {
+        saveConfirmed(CARD_NUMBER, transactions);
+        saveConfirmed(OTHER_CARD_NUMBER, transactions);
+
+        assertOneStatement(() -> transactionRepository.findRecentByCardNumber(CARD_NUMBER, Limit.of(50)), transactions);
+
+        statistics.clear();
+        List<RecentTransactionView> recent = transactionRepository.findRecentByCardNumbers(
+                new String[]{CARD_NUMBER, OTHER_CARD_NUMBER}, 50);
+        recent.forEach(row -> assertThat(row.getVendor()).isNotNull());
+        assertThat(recent).hasSize(transactions * 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listingDoesNotLoadEntities() {
+        saveConfirmed(CARD_NUMBER, 10);
+
+        statistics.clear();
+        transactionRepository.findFirstPageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 50);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void pagesListConfirmedTransactionsOnly() {
+        saveConfirmed(CARD_NUMBER, 3);
+        save(CARD_NUMBER, 2, TransactionStatus.CANCELLED);
+        save(CARD_NUMBER, 2, TransactionStatus.FAILED);
+
+        assertThat(transactionRepository.findFirstPageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 50)).hasSize(3);
+        assertThat(transactionRepository.findFirstExpensePageByCardInPeriod(CARD_NUMBER, start, end, createdFrom, 50)).hasSize(3);
+        assertThat(transactionRepository.sumByDayAndCategory(CARD_NUMBER, start, end, createdFrom))
+                .singleElement()
+                .satisfies(total -> assertThat(total.getTransactionCount()).isEqualTo(3));
+    }
+
+    private void assertOneStatement(Supplier<List<TransactionRow>> page, int expectedRows) {
+        statistics.clear();
+        List<TransactionRow> rows = page.get();
+        rows.forEach(row -> {
+            assertThat(row.vendor()).isNotNull();
+            assertThat(row.category()).isNotNull();
+        });
+        assertThat(rows).hasSize(expectedRows);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void saveConfirmed(String cardNumber, int count) {
+        save(cardNumber, count, TransactionStatus.CONFIRMED);
+    }
+
+    // Cancelled and failed transactions keep the confirmed_at of their confirmation
+    private void save(String cardNumber, int count, TransactionStatus status) {
+        Instant confirmedAt = Instant.now();
+        for (int i = 0; i < count; i++) {
+            PaymentOfferEntity offer = paymentOfferEntityRepository.save(PaymentOfferEntity.builder()
+                    .id(UUID.randomUUID().toString())
+                    .amount(BigDecimal.TEN)
+                    .currency(Currency.RUB)
+                    .category(TransactionCategory.SUPERMARKETS)
+                    .vendor("Vendor " + i)
+                    .suggestedAt(confirmedAt)
+                    .completedAt(confirmedAt)
+                    .build());
+            transactionRepository.save(Transaction.builder()
+                    .userId(UUID.randomUUID())
+                    .offer(offer)
+                    .status(status)
+                    .cardNumber(cardNumber)
+                    .cardType(CardType.DEBIT)
+                    .fee(BigDecimal.ZERO)
+                    .amount(BigDecimal.TEN.negate())
+                    .createdAt(confirmedAt.minusSeconds(1))
+                    .confirmedAt(confirmedAt.minusMillis(i))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // The entities and repositories on the Liquibase schema, without the Feign clients and scheduling of the application.
+    // A nested configuration is left out of the application's component scan, unlike a top-level one in the test tree.
+    @Configuration
+    @EntityScan("com.wallet.transactionservice.entity")
+    @EnableJpaRepositories("com.wallet.transactionservice.repository")
+    static class JpaConfiguration {
+    }
+}
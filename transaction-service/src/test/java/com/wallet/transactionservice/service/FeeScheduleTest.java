@@ -0,0 +1,126 @@
+package com.wallet.transactionservice.service;
+
+import com.wallet.transactionservice.entity.FeeTier;
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeeScheduleTest {
+    private static final TransactionCategory CATEGORY = TransactionCategory.SUPERMARKETS;
+    private static final CardType CARD_TYPE = CardType.DEBIT;
+
+    // 100..1000: 2% with a minimum of 5; 1000..5000: 1%; from 5000: 0.5% capped at 40
+    private final FeeSchedule schedule = FeeSchedule.compile(List.of(
+            tier(null, null, "5000", "0.005", "0", "40"),
+            tier(null, null, "100", "0.02", "5", null),
+            tier(null, null, "1000", "0.01", "0", null)
+    ), 1);
+
+    @Test
+    void amountsBelowTheFirstTierPayNoFee() {
+        assertThat(fee("0")).isEqualByComparingTo("0");
+        assertThat(fee("99.9999")).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void tierStartsAtItsMinAmountInclusive() {
+        assertThat(fee("100")).isEqualByComparingTo("7");
+        assertThat(fee("999.9999")).isEqualByComparingTo("25");
+        assertThat(fee("1000")).isEqualByComparingTo("10");
+        assertThat(fee("4999.9999")).isEqualByComparingTo("50");
+        assertThat(fee("5000")).isEqualByComparingTo("25");
+    }
+
+    @Test
+    void amountsBetweenTiersUseTheLowerTier() {
+        assertThat(fee("500")).isEqualByComparingTo("15");
+        assertThat(fee("2500")).isEqualByComparingTo("25");
+    }
+
+    // The fixed fee is added to the proportional part, so it is the least any amount of its tier pays
+    @Test
+    void fixedFeeIsTheMinimumOfItsTier() {
+        assertThat(fee("100.0001")).isEqualByComparingTo("7");
+        assertThat(schedule.applyFee(new BigDecimal("150"), CATEGORY, CARD_TYPE)).isEqualByComparingTo("158");
+    }
+
+    @Test
+    void feeIsCappedAtMaxFee() {
+        assertThat(fee("7000")).isEqualByComparingTo("35");
+        assertThat(fee("8000")).isEqualByComparingTo("40");
+        assertThat(fee("9000")).isEqualByComparingTo("40");
+    }
+
+    @Test
+    void amountsAboveTheTopTierUseTheTopTier() {
+        assertThat(fee("1000000000")).isEqualByComparingTo("40");
+
+        FeeSchedule uncapped = FeeSchedule.compile(List.of(tier(null, null, "0", "0.01", "0", null)), 1);
+        assertThat(uncapped.applyFee(new BigDecimal("1000000000"), CATEGORY, CARD_TYPE)).isEqualByComparingTo("1010000000");
+    }
+
+    @Test
+    void proportionalFeeIsRoundedHalfUp() {
+        FeeSchedule percent = FeeSchedule.compile(List.of(tier(null, null, "0", "0.01", "0", null)), 1);
+        // 1% of 0.0050 is 0.00005 and of 0.0049 is 0.000049, at the amount scale of 4 digits
+        assertThat(percent.fee(CATEGORY, CARD_TYPE, 50)).isEqualTo(1);
+        assertThat(percent.fee(CATEGORY, CARD_TYPE, 49)).isZero();
+        assertThat(percent.fee(CATEGORY, CARD_TYPE, 150)).isEqualTo(2);
+        // Fees are in units of 0.0001: 2% of 999.9999 is 19.999998 and becomes 20
+        assertThat(fee("999.9999")).isEqualByComparingTo("25");
+        // The amount is rounded half up to the scale of transaction_.amount before the fee is taken from it
+        assertThat(percent.applyFee(new BigDecimal("0.00495"), CATEGORY, CARD_TYPE)).isEqualByComparingTo("0.00505");
+    }
+
+    @Test
+    void mostSpecificScopeWins() {
+        FeeSchedule scoped = FeeSchedule.compile(List.of(
+                tier(null, null, "0", "0.01", "0", null),
+                tier(null, CardType.CREDIT, "0", "0.02", "0", null),
+                tier(CATEGORY, null, "0", "0.03", "0", null),
+                tier(CATEGORY, CardType.CREDIT, "0", "0.04", "0", null)
+        ), 1);
+        long amount = 1_000_000;
+
+        assertThat(scoped.fee(CATEGORY, CardType.CREDIT, amount)).isEqualTo(40_000);
+        assertThat(scoped.fee(CATEGORY, CardType.DEBIT, amount)).isEqualTo(30_000);
+        assertThat(scoped.fee(TransactionCategory.TRAVEL, CardType.CREDIT, amount)).isEqualTo(20_000);
+        assertThat(scoped.fee(TransactionCategory.TRAVEL, CardType.DEBIT, amount)).isEqualTo(10_000);
+    }
+
+    @Test
+    void emptyScheduleChargesNothing() {
+        assertThat(FeeSchedule.EMPTY.applyFee(new BigDecimal("1000"), CATEGORY, CARD_TYPE)).isEqualByComparingTo("1000");
+    }
+
+    @Test
+    void duplicateTiersAreRejected() {
+        assertThatThrownBy(() -> FeeSchedule.compile(List.of(
+                tier(null, null, "100", "0.01", "0", null),
+                tier(null, null, "100.0000", "0.02", "0", null)
+        ), 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private BigDecimal fee(String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        return schedule.applyFee(value, CATEGORY, CARD_TYPE).subtract(value);
+    }
+
+    private static FeeTier tier(TransactionCategory category, CardType cardType, String minAmount, String rate,
+                                String fixedFee, String maxFee) {
+        return FeeTier.builder()
+                .category(category)
+                .cardType(cardType)
+                .minAmount(new BigDecimal(minAmount))
+                .rate(new BigDecimal(rate))
+                .fixedFee(new BigDecimal(fixedFee))
+                .maxFee(maxFee == null ? null : new BigDecimal(maxFee))
+                .build();
+    }
+}
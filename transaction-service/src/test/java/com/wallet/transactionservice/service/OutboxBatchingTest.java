@@ -0,0 +1,261 @@
+package com.wallet.transactionservice.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.wallet.transactionservice.entity.OutboxEvent;
+import com.wallet.transactionservice.entity.PaymentOfferEntity;
+import com.wallet.transactionservice.entity.Transaction;
+import com.wallet.transactionservice.enums.CardType;
+import com.wallet.transactionservice.enums.Currency;
+import com.wallet.transactionservice.enums.TransactionCategory;
+import com.wallet.transactionservice.enums.TransactionEventKey;
+import com.wallet.transactionservice.enums.TransactionEventType;
+import com.wallet.transactionservice.enums.TransactionStatus;
+import com.wallet.transactionservice.feign.AnalyticsFeignClient;
+import com.wallet.transactionservice.feign.CardFeignClient;
+import com.wallet.transactionservice.kafka.TransactionKafkaProducer;
+import com.wallet.transactionservice.mapper.TransactionMapperImpl;
+import com.wallet.transactionservice.repository.CardLastUsedRepository;
+import com.wallet.transactionservice.repository.OutboxRepository;
+import com.wallet.transactionservice.repository.PaymentOfferEntityRepository;
+import com.wallet.transactionservice.repository.TransactionRepository;
+import com.wallet.transactionservice.util.DateConverter;
+import com.wallet.transactionservice.util.LocalDateValidator;
+import com.wallet.transactionservice.util.PaymentValidator;
+import jakarta.persistence.EntityManager;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A burst of 1,000 expired payments is cancelled and written to the outbox in a few statements per chunk, and relayed
+// in a few batches, each deleted with one statement
+// Opt-in: runs only when POSTGRES_HOST points at a PostgreSQL (the POSTGRES_* variables of application.yml), since the
+// partitioned Liquibase schema needs PostgreSQL and the build provides none; a plain mvn test skips it.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "POSTGRES_HOST", matches = ".+")
+class OutboxBatchingTest {
+    private static final int EVENTS = 1000;
+    private static final int CARDS = 100;
+    // transaction.scheduler.pending-cleanup.chunk-size
+    private static final int CHUNK_SIZE = 500;
+    private static final int BATCH_SIZE = 500;
+    private static final int SHARDS = 16;
+    // hibernate.jdbc.batch_size and the allocationSize of outbox_id_seq
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PaymentOfferEntityRepository paymentOfferEntityRepository;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        outboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void cancellationBurstIsWrittenInFewStatements() {
+        savePendingTransactions();
+
+        statistics.clear();
+        scheduler().removePendingTransactions();
+
+        assertThat(outboxRepository.findAll())
+                .hasSize(EVENTS)
+                .allMatch(event -> event.getEventType().equals(TransactionEventType.TRANSACTION_CANCELLED.toString()));
+        // Per chunk: the expiring UPDATE, the multi-row outbox INSERT and the offer lookup; the last chunk finds nothing
+        int chunks = EVENTS / CHUNK_SIZE + 1;
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3L * chunks);
+        assertThat(statistics.getEntityInsertCount()).isZero();
+    }
+
+    @Test
+    void eventsAreInsertedInJdbcBatches() {
+        statistics.clear();
+        outboxRepository.saveAll(events());
+        entityManager.flush();
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(EVENTS);
+        // Single cancellations and payments save entities: one statement per insert batch and one nextval per id block
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * EVENTS / JDBC_BATCH_SIZE);
+    }
+
+    @Test
+    void cancellationBurstIsRelayedInBatches() {
+        savePendingTransactions();
+        scheduler().removePendingTransactions();
+        entityManager.clear();
+
+        List<String> sentKeys = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, String> record = invocation.getArgument(0);
+            sentKeys.add(record.key());
+            return CompletableFuture.completedFuture(new SendResult<>(record, null));
+        });
+        TransactionKafkaProducer producer = new TransactionKafkaProducer(kafkaTemplate);
+        ReflectionTestUtils.setField(producer, "topic", "transaction.events");
+        ReflectionTestUtils.setField(producer, "key", TransactionEventKey.CARD_NUMBER);
+
+        // Sends since the previous flush, recorded whenever a relay batch deletes its acknowledged rows
+        List<Integer> sendsPerFlush = new ArrayList<>();
+        List<Integer> deletesPerFlush = new ArrayList<>();
+        OutboxRepository repository = mock(OutboxRepository.class, delegatesTo(outboxRepository));
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            sendsPerFlush.add(sentKeys.size() - sendsPerFlush.stream().mapToInt(Integer::intValue).sum());
+            deletesPerFlush.add(ids.size());
+            return outboxRepository.deleteAllByIdIn(ids);
+        }).when(repository).deleteAllByIdIn(any());
+
+        OutboxRelay relay = new OutboxRelay(repository, producer, new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(relay, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(relay, "ackTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(relay, "shards", SHARDS);
+        ReflectionTestUtils.setField(relay, "key", TransactionEventKey.CARD_NUMBER);
+        relay.drain();
+
+        assertThat(sentKeys).hasSize(EVENTS);
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(sendsPerFlush).isEqualTo(deletesPerFlush);
+        assertThat(deletesPerFlush).allMatch(deleted -> deleted <= BATCH_SIZE);
+        // At most one batch per shard for this volume, never one flush per event
+        assertThat(deletesPerFlush).hasSizeLessThanOrEqualTo(SHARDS);
+        Set<String> keys = new HashSet<>(sentKeys);
+        assertThat(keys).hasSize(CARDS);
+    }
+
+    // The scheduler over the real repositories; card-service, Redis and the read-side services are mocked
+    private TransactionScheduler scheduler() {
+        PaymentOfferEntityService paymentOfferEntityService = mock(PaymentOfferEntityService.class);
+        when(paymentOfferEntityService.findAllById(any())).thenAnswer(invocation ->
+                paymentOfferEntityRepository.findAllById(invocation.<Collection<String>>getArgument(0)));
+        TransactionService transactionService = new TransactionService(
+                transactionRepository,
+                paymentOfferEntityService,
+                new TransactionMapperImpl(),
+                JsonMapper.builder().findAndAddModules().build(),
+                outboxRepository,
+                mock(FeeService.class),
+                mock(PaymentValidator.class),
+                mock(LocalDateValidator.class),
+                mock(CardFeignClient.class),
+                mock(DateConverter.class),
+                mock(AnalyticsFeignClient.class),
+                mock(CardDailyRollupService.class),
+                mock(SpendCounterService.class),
+                mock(MonthlyStatementService.class),
+                mock(PaymentMetrics.class),
+                mock(CardLastUsedRepository.class),
+                mock(CardCaptureService.class));
+        TransactionScheduler scheduler = new TransactionScheduler(transactionService, paymentOfferEntityService);
+        ReflectionTestUtils.setField(scheduler, "chunkSize", CHUNK_SIZE);
+        return scheduler;
+    }
+
+    // Pending payments older than the 300 seconds after which the scheduler expires them
+    private void savePendingTransactions() {
+        Instant createdAt = Instant.now().minus(Duration.ofMinutes(10));
+        List<PaymentOfferEntity> offers = new ArrayList<>(EVENTS);
+        List<Transaction> transactions = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            PaymentOfferEntity offer = PaymentOfferEntity.builder()
+                    .id("pmt-" + (900_000_000L + ThreadLocalRandom.current().nextLong(100_000_000L)))
+                    .amount(BigDecimal.TEN)
+                    .currency(Currency.RUB)
+                    .category(TransactionCategory.SUPERMARKETS)
+                    .vendor("Vendor " + i)
+                    .suggestedAt(createdAt)
+                    .build();
+            offers.add(offer);
+            transactions.add(Transaction.builder()
+                    .userId(UUID.randomUUID())
+                    .offer(offer)
+                    .status(TransactionStatus.PENDING)
+                    .cardNumber(cardNumber(i))
+                    .cardType(CardType.DEBIT)
+                    .fee(BigDecimal.ZERO)
+                    .amount(BigDecimal.TEN.negate())
+                    .createdAt(createdAt)
+                    .build());
+        }
+        paymentOfferEntityRepository.saveAll(offers);
+        transactionRepository.saveAll(transactions);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static List<OutboxEvent> events() {
+        List<OutboxEvent> events = new ArrayList<>(EVENTS);
+        Instant createdAt = Instant.now();
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(OutboxEvent.builder()
+                    .eventType("TRANSACTION_SUCCESSFUL")
+                    .payload("{\"n\":" + i + "}")
+                    .cardNumber(cardNumber(i))
+                    .userId(UUID.randomUUID())
+                    .createdAt(createdAt)
+                    .build());
+        }
+        return events;
+    }
+
+    private static String cardNumber(int i) {
+        return "40000000000" + (10000 + i % CARDS);
+    }
+
+    // The entities and repositories on the Liquibase schema, without the Feign clients and scheduling of the application.
+    // A nested configuration is left out of the application's component scan, unlike a top-level one in the test tree.
+    @Configuration
+    @EntityScan("com.wallet.transactionservice.entity")
+    @EnableJpaRepositories("com.wallet.transactionservice.repository")
+    static class JpaConfiguration {
+    }
+}